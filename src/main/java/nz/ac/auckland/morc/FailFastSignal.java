@@ -0,0 +1,59 @@
+package nz.ac.auckland.morc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the first definitive violation of a specification part - one that no further waiting could fix - so that
+ * the waits of the part can be abandoned and the failure reported straight away
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+class FailFastSignal {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailFastSignal.class);
+
+    private final List<Runnable> abortActions = new ArrayList<>();
+    private AssertionError violation;
+
+    /**
+     * @param abortAction An action that cancels a wait of the part; this is run immediately if a violation has
+     *                    already occurred
+     */
+    public void onViolation(Runnable abortAction) {
+        synchronized (this) {
+            if (violation == null) {
+                abortActions.add(abortAction);
+                return;
+            }
+        }
+        abortAction.run();
+    }
+
+    /**
+     * @param description A description of the violation that will be reported as the failure of the part
+     */
+    public void violated(String description) {
+        List<Runnable> actions;
+        synchronized (this) {
+            if (violation != null) return;
+            violation = new AssertionError(description);
+            actions = new ArrayList<>(abortActions);
+            abortActions.clear();
+        }
+
+        logger.info("Abandoning the remaining waits of the specification part: {}", description);
+        for (Runnable action : actions)
+            action.run();
+    }
+
+    /**
+     * @return The first violation that occurred, or null if there hasn't been one
+     */
+    public synchronized AssertionError getViolation() {
+        return violation;
+    }
+}
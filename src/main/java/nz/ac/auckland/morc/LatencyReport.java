@@ -0,0 +1,109 @@
+package nz.ac.auckland.morc;
+
+import nz.ac.auckland.morc.utility.LatencyHistogram;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The latencies recorded while running a specification: the round trip time of every message sent to the target
+ * endpoint, and for each mock endpoint the time between a message being published and each message it causes to
+ * arrive at the mock. Arrival latencies are only recorded for messages that carry the send time of the published
+ * message, which isn't the case for those that arrive from outside the JVM (e.g. over HTTP).
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class LatencyReport {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String description;
+    private final long timestamp = System.currentTimeMillis();
+    private final LatencyHistogram roundTripLatencies = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> mockArrivalLatencies = new ConcurrentHashMap<>();
+
+    /**
+     * @param description The description of the specification the latencies are for
+     */
+    public LatencyReport(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return The description of the specification the latencies are for
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return The time in milliseconds since the epoch at which the specification started
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return The latencies in nanoseconds between sending each message to the target endpoint and the response
+     */
+    public LatencyHistogram getRoundTripLatencies() {
+        return roundTripLatencies;
+    }
+
+    /**
+     * @return The latencies in nanoseconds between a message being published and each message it caused to arrive,
+     * keyed by the endpoint URI of each mock
+     */
+    public Map<String, LatencyHistogram> getMockArrivalLatencies() {
+        return Collections.unmodifiableMap(mockArrivalLatencies);
+    }
+
+    /**
+     * @param endpointUri The endpoint URI of the mock that a message arrived at
+     * @return The histogram to record the arrival latency of messages to the mock endpoint
+     */
+    LatencyHistogram getMockArrivalLatencies(String endpointUri) {
+        return mockArrivalLatencies.computeIfAbsent(endpointUri, uri -> new LatencyHistogram());
+    }
+
+    /**
+     * @return A single line JSON representation of the report with latencies in milliseconds
+     */
+    public String toJson() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("specification", description);
+        report.put("timestamp", timestamp);
+        report.put("roundTrip", summarize(roundTripLatencies));
+
+        Map<String, Object> mocks = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : mockArrivalLatencies.entrySet())
+            mocks.put(entry.getKey(), summarize(entry.getValue()));
+        report.put("mockArrival", mocks);
+
+        try {
+            return objectMapper.writeValueAsString(report);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Map<String, Object> summarize(LatencyHistogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getCount());
+        summary.put("p50", histogram.getValueAtPercentile(50) / 1e6);
+        summary.put("p90", histogram.getValueAtPercentile(90) / 1e6);
+        summary.put("p99", histogram.getValueAtPercentile(99) / 1e6);
+        summary.put("max", histogram.getMax() / 1e6);
+        return summary;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("round trip (").append(roundTripLatencies).append(")");
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(mockArrivalLatencies).entrySet())
+            builder.append(", ").append(entry.getKey()).append(" arrival (").append(entry.getValue()).append(")");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,268 @@
+package nz.ac.auckland.morc;
+
+import nz.ac.auckland.morc.endpointoverride.EndpointOverride;
+import nz.ac.auckland.morc.load.LoadTestResult;
+import nz.ac.auckland.morc.load.LoadTestSpecification;
+import nz.ac.auckland.morc.mock.MockDefinition;
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import nz.ac.auckland.morc.utility.LatencyHistogram;
+import org.apache.camel.*;
+import org.apache.camel.model.ModelCamelContext;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.model.TryDefinition;
+import org.apache.camel.util.MessageHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a load test by repeatedly sending the messages of each part of a specification to its target endpoint while
+ * the mock definitions of every part respond to the artifact under testing. Invalid responses and mock messages are
+ * counted rather than failing the test straight away.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+class LoadTestRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private ModelCamelContext context;
+    private LoadTestSpecification loadTestSpecification;
+    private PersistentMocks persistentMocks;
+
+    private final AtomicLong iterationCount = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong mockMessageCount = new AtomicLong();
+    private final AtomicLong mockErrorCount = new AtomicLong();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    public LoadTestRunner(ModelCamelContext context, LoadTestSpecification loadTestSpecification,
+                          PersistentMocks persistentMocks) {
+        this.context = context;
+        this.loadTestSpecification = loadTestSpecification;
+        this.persistentMocks = persistentMocks;
+    }
+
+    /**
+     * Runs iterations of the specification until the duration has passed or the number of iterations have been run,
+     * returning once every iteration has completed
+     */
+    public LoadTestResult run() throws Exception {
+        String routeIdPrefix = MorcTest.class.getCanonicalName() + "." + UUID.randomUUID() + ".";
+        List<RouteDefinition> createdRoutes = new ArrayList<>();
+        Map<MorcRouteTemplates.Binding, Processor> boundRoutes = new LinkedHashMap<>();
+        List<Endpoint> publishEndpoints = new ArrayList<>();
+
+        ExecutorService executor = context.getExecutorServiceManager()
+                .newFixedThreadPool(this, "MorcLoadTest", loadTestSpecification.getConcurrency());
+        ProducerTemplate template = context.createProducerTemplate();
+
+        try {
+            //the mocks of every part are listening for the whole load test as the parts overlap between iterations
+            Map<String, List<MockDefinition>> mockDefinitions = new LinkedHashMap<>();
+            OrchestratedTestSpecification part = loadTestSpecification.getSpecification();
+            do {
+                for (MockDefinition mockDefinition : part.getMockDefinitions())
+                    mockDefinitions.computeIfAbsent(mockDefinition.getEndpointUri(), uri -> new ArrayList<>())
+                            .add(mockDefinition);
+                publishEndpoints.add(addPublishRoute(part, routeIdPrefix + "publish" + publishEndpoints.size(),
+                        createdRoutes));
+                part = part.getNextPart();
+            } while (part != null);
+
+            for (Map.Entry<String, List<MockDefinition>> entry : mockDefinitions.entrySet())
+                bindMockRoute(entry.getKey(), entry.getValue(), boundRoutes);
+
+            final int concurrency = loadTestSpecification.getConcurrency();
+            final Semaphore inFlight = new Semaphore(concurrency);
+            final long interval = loadTestSpecification.getRate() > 0 ?
+                    (long) (TimeUnit.SECONDS.toNanos(1) / loadTestSpecification.getRate()) : 0;
+            final long startTime = System.nanoTime();
+            //nanoTime may be negative, so without a duration there is no end time to compare against
+            final boolean timed = loadTestSpecification.getDuration() > 0;
+            final long endTime = startTime + TimeUnit.MILLISECONDS.toNanos(loadTestSpecification.getDuration());
+
+            logger.info("Starting load test {} with a rate of {}/s and concurrency of {}", new Object[]{
+                    loadTestSpecification.getDescription(), loadTestSpecification.getRate(), concurrency});
+
+            for (long i = 0; loadTestSpecification.getIterations() == 0 || i < loadTestSpecification.getIterations(); i++) {
+                //iterations are started relative to the start time so that slow iterations don't lower the rate
+                long wait;
+                while ((wait = startTime + i * interval - System.nanoTime()) > 0)
+                    TimeUnit.NANOSECONDS.sleep(wait);
+
+                if (timed && System.nanoTime() - endTime >= 0) break;
+
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        runIteration(publishEndpoints, template);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            //once we have every permit back there are no iterations left running
+            inFlight.acquire(concurrency);
+
+            return new LoadTestResult(iterationCount.get(), requestCount.get(), errorCount.get(), mockMessageCount.get(),
+                    mockErrorCount.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), latencies);
+        } finally {
+            context.getExecutorServiceManager().shutdownNow(executor);
+            template.stop();
+
+            for (RouteDefinition routeDefinition : createdRoutes)
+                context.removeRouteDefinition(routeDefinition);
+
+            for (Map.Entry<MorcRouteTemplates.Binding, Processor> boundRoute : boundRoutes.entrySet())
+                boundRoute.getKey().unbind(boundRoute.getValue());
+        }
+    }
+
+    private void runIteration(List<Endpoint> publishEndpoints, ProducerTemplate template) {
+        OrchestratedTestSpecification part = loadTestSpecification.getSpecification();
+        for (Endpoint publishEndpoint : publishEndpoints) {
+            for (int i = 0; i < part.getProcessors().size(); i++) {
+                boolean valid;
+                try {
+                    Exchange exchange = publishEndpoint.createExchange();
+                    part.getProcessors().get(i).process(exchange);
+
+                    long sendTime = System.nanoTime();
+                    exchange = template.send(publishEndpoint, exchange);
+                    latencies.record(System.nanoTime() - sendTime);
+
+                    valid = part.getPredicates().get(i).matches(exchange);
+                    if (!valid)
+                        logger.debug("The response to message {} on endpoint {} did not satisfy the predicate {}",
+                                new Object[]{i, part.getEndpointUri(), part.getPredicates().get(i)});
+                } catch (Exception e) {
+                    logger.debug("Unable to send message {} to endpoint {}", new Object[]{i, part.getEndpointUri(), e});
+                    valid = false;
+                }
+
+                requestCount.incrementAndGet();
+                if (!valid) errorCount.incrementAndGet();
+            }
+            part = part.getNextPart();
+        }
+        iterationCount.incrementAndGet();
+    }
+
+    private Endpoint addPublishRoute(OrchestratedTestSpecification part, String routeId,
+                                     List<RouteDefinition> createdRoutes) throws Exception {
+        Endpoint targetEndpoint = context.getEndpoint(part.getEndpointUri());
+        for (EndpointOverride override : part.getEndpointOverrides())
+            override.overrideEndpoint(targetEndpoint);
+
+        Endpoint publishEndpoint = context.getEndpoint("direct:" + UUID.randomUUID());
+
+        RouteDefinition publishRouteDefinition = new RouteDefinition();
+        TryDefinition tryDefinition = publishRouteDefinition.from(publishEndpoint)
+                .routeId(routeId)
+                .handleFault()
+                .doTry();
+
+        if (part.getTestBean() == null) tryDefinition.to(targetEndpoint);
+        else tryDefinition.process(part.getTestBean());
+
+        //responses are validated after the exchange completes, when any spooled body would have been removed
+        tryDefinition
+                .convertBodyTo(byte[].class)
+                .doCatch(Throwable.class).end();
+
+        if (part.getMockFeedPreprocessor() != null) publishRouteDefinition.process(part.getMockFeedPreprocessor());
+
+        context.addRouteDefinition(publishRouteDefinition);
+        createdRoutes.add(publishRouteDefinition);
+
+        return publishEndpoint;
+    }
+
+    private void bindMockRoute(String endpointUri, List<MockDefinition> mockDefinitions,
+                               Map<MorcRouteTemplates.Binding, Processor> boundRoutes) throws Exception {
+        List<EndpointOverride> endpointOverrides = new ArrayList<>();
+        for (MockDefinition mockDefinition : mockDefinitions)
+            endpointOverrides.addAll(mockDefinition.getEndpointOverrides());
+
+        MorcRouteTemplates.Binding binding = persistentMocks
+                .templatesFor(endpointUri, MorcRouteTemplates.forContext(context))
+                .mockRoute(endpointUri, endpointOverrides);
+
+        Processor loadTestMock = new LoadTestMock(mockDefinitions);
+        //the messages of a load test don't carry a part id, so any message arriving while it runs is its own
+        binding.bind(loadTestSpecification.getDescription(), loadTestMock);
+        boundRoutes.put(binding, loadTestMock);
+    }
+
+    /**
+     * Validates each message arriving at a mock endpoint against the predicates of all of the parts, and responds
+     * using the processors of all of the parts in the order that messages arrive; the mock feed preprocessor applied
+     * is that of the part whose processor responds (or, without processors, of each part in turn)
+     */
+    private class LoadTestMock implements Processor {
+        private List<MockDefinition> mockDefinitions;
+        private List<Processor> processors = new ArrayList<>();
+        private List<Predicate> predicates = new ArrayList<>();
+        //the part that each arrival belongs to, in the same order as the processors
+        private List<MockDefinition> arrivalDefinitions = new ArrayList<>();
+        private final AtomicLong arrivalCount = new AtomicLong();
+
+        LoadTestMock(List<MockDefinition> mockDefinitions) {
+            this.mockDefinitions = mockDefinitions;
+            for (MockDefinition mockDefinition : mockDefinitions) {
+                processors.addAll(mockDefinition.getProcessors());
+                predicates.addAll(mockDefinition.getPredicates());
+                for (int i = 0; i < mockDefinition.getProcessors().size(); i++)
+                    arrivalDefinitions.add(mockDefinition);
+            }
+
+            if (arrivalDefinitions.isEmpty()) arrivalDefinitions.addAll(mockDefinitions);
+        }
+
+        @Override
+        public void process(Exchange exchange) throws Exception {
+            for (MockDefinition mockDefinition : mockDefinitions) {
+                if (mockDefinition.getLenientSelector() != null && mockDefinition.getLenientSelector().matches(exchange)) {
+                    mockDefinition.getLenientProcessor().process(exchange);
+                    return;
+                }
+            }
+
+            long arrival = arrivalCount.getAndIncrement();
+            mockMessageCount.incrementAndGet();
+
+            MockDefinition mockDefinition = arrivalDefinitions.get((int) (arrival % arrivalDefinitions.size()));
+            if (mockDefinition.getMockFeedPreprocessor() != null)
+                mockDefinition.getMockFeedPreprocessor().process(exchange);
+
+            if (!matchesAny(exchange)) {
+                logger.debug("Message {} to endpoint {} did not satisfy any predicate", arrival,
+                        mockDefinition.getEndpointUri());
+                mockErrorCount.incrementAndGet();
+            }
+
+            MessageHelper.resetStreamCache(exchange.getIn());
+            if (!processors.isEmpty())
+                processors.get((int) (arrival % processors.size())).process(exchange);
+        }
+
+        private boolean matchesAny(Exchange exchange) {
+            //unreceived mocks have no predicates and shouldn't see any messages at all
+            if (predicates.isEmpty()) return mockDefinitions.get(0).getExpectedMessageCount() > 0;
+
+            for (Predicate predicate : predicates) {
+                MessageHelper.resetStreamCache(exchange.getIn());
+                if (predicate.matches(exchange)) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package nz.ac.auckland.morc;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.impl.DefaultProducerTemplate;
+import org.apache.camel.support.SynchronizationAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes a message for each processor to an endpoint while keeping up to a fixed number of messages in-flight at
+ * the same time; when only one message may be in-flight the send interval is waited between each message. Each
+ * exchange is given the index of its processor so that responses can be correlated back to the request that caused
+ * them.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+class MessagePublisher {
+
+    /**
+     * The exchange property containing the (0 based) index of the processor used to populate the published message
+     */
+    static final String PUBLISH_INDEX_PROPERTY = "morcPublishIndex";
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePublisher.class);
+
+    private CamelContext context;
+    private Endpoint endpoint;
+    private List<Processor> processors;
+    private int concurrency;
+    private long sendInterval;
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+
+    public MessagePublisher(CamelContext context, Endpoint endpoint, List<Processor> processors, int concurrency,
+                            long sendInterval) {
+        this.context = context;
+        this.endpoint = endpoint;
+        this.processors = processors;
+        this.concurrency = concurrency;
+        this.sendInterval = sendInterval;
+    }
+
+    /**
+     * Stops any further messages being sent; publish will return without waiting for messages still in-flight
+     */
+    public void cancel() {
+        cancelled.countDown();
+    }
+
+    /**
+     * Sends all of the messages, returning once every message has completed or publishing has been cancelled
+     */
+    public void publish() throws Exception {
+        ExecutorService executor = context.getExecutorServiceManager()
+                .newFixedThreadPool(this, "MorcPublisher", concurrency);
+        ProducerTemplate template = new DefaultProducerTemplate(context, executor);
+        final Semaphore inFlight = new Semaphore(concurrency);
+
+        try {
+            template.start();
+
+            for (int i = 0; i < processors.size(); i++) {
+                inFlight.acquire();
+
+                //the previous message has completed by the time we have the permit
+                if (concurrency == 1 && i > 0 && cancelled.await(sendInterval, TimeUnit.MILLISECONDS)) break;
+                if (cancelled.getCount() == 0) break;
+
+                Exchange exchange = endpoint.createExchange();
+                exchange.setProperty(PUBLISH_INDEX_PROPERTY, i);
+                try {
+                    logger.trace("Sending message {}", i);
+                    processors.get(i).process(exchange);
+                } catch (Exception e) {
+                    inFlight.release();
+                    throw e;
+                }
+
+                template.asyncCallback(endpoint, exchange, new SynchronizationAdapter() {
+                    @Override
+                    public void onDone(Exchange exchange) {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            //once we have every permit back there are no messages left in-flight
+            if (cancelled.getCount() > 0) inFlight.acquire(concurrency);
+        } finally {
+            template.stop();
+            context.getExecutorServiceManager().shutdownNow(executor);
+        }
+    }
+}
@@ -63,6 +63,19 @@ public class MorcBuilder<Builder extends MorcBuilder<Builder>> {
         return self();
     }
 
+    /**
+     * Adds a processor for each of a series of exchanges, as if addProcessors was called once for each processor
+     *
+     * @param processors Processors that will each handle a separate exchange (in order), such as the resources
+     *                   created from a data source
+     */
+    public Builder addProcessorSeries(Iterable<? extends Processor> processors) {
+        for (Processor processor : processors) {
+            addProcessors(processor);
+        }
+        return self();
+    }
+
     /**
      * Add a set of processors to handle an outgoing exchange at a particular offset (n'th message)
      *
@@ -109,6 +122,19 @@ public class MorcBuilder<Builder extends MorcBuilder<Builder>> {
         return self();
     }
 
+    /**
+     * Adds a predicate for each of a series of exchanges, as if addPredicates was called once for each predicate
+     *
+     * @param predicates Predicates that will each validate a separate exchange (in order), such as the resources
+     *                   created from a data source
+     */
+    public Builder addPredicateSeries(Iterable<? extends Predicate> predicates) {
+        for (Predicate predicate : predicates) {
+            addPredicates(predicate);
+        }
+        return self();
+    }
+
     /**
      * Add a set of predicates to validate an exchange at a particular offset (n'th message)
      *
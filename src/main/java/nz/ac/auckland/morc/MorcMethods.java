@@ -1,12 +1,15 @@
 package nz.ac.auckland.morc;
 
-import au.com.bytecode.opencsv.CSVReader;
 import groovy.text.GStringTemplateEngine;
 import groovy.text.TemplateEngine;
+import nz.ac.auckland.morc.predicate.CachedBodyXPathBuilder;
 import nz.ac.auckland.morc.predicate.MultiPredicate;
 import nz.ac.auckland.morc.processor.MatchedResponseProcessor;
 import nz.ac.auckland.morc.processor.SelectorProcessor;
 import nz.ac.auckland.morc.resource.*;
+import nz.ac.auckland.morc.utility.CsvDataSource;
+import nz.ac.auckland.morc.utility.LazyUrlInputStream;
+import nz.ac.auckland.morc.utility.ResourceDirectory;
 import nz.ac.auckland.morc.utility.XmlUtilities;
 import org.apache.camel.Exchange;
 import org.apache.camel.Predicate;
@@ -14,14 +17,10 @@ import org.apache.camel.Processor;
 import org.apache.camel.builder.SimpleBuilder;
 import org.apache.camel.builder.xml.XPathBuilder;
 import org.apache.camel.jsonpath.JsonPathExpression;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
 import javax.xml.namespace.QName;
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
 import java.net.URL;
 import java.util.*;
 
@@ -33,6 +32,14 @@ public interface MorcMethods {
         return xmlUtilities;
     }
 
+    /**
+     * @return The resource directory that resolves the paths given to dir(); paths are resolved again for each new
+     * resource directory, so by default they are never cached
+     */
+    default ResourceDirectory getResourceDirectory() {
+        return new ResourceDirectory();
+    }
+
     default QName soapFaultClient() {
         return qname("http://schemas.xmlsoap.org/soap/envelope/", "Client");
     }
@@ -321,6 +328,66 @@ public interface MorcMethods {
         return results;
     }
 
+    /**
+     * A way of paramaterizing resources from a data source too large to load, such as csv(URL); each resource is
+     * created as the returned iterable reaches its row, rather than all up front. The resources can be given to the
+     * builders with methods such as requests, expectations and responses, which read the data source to the end
+     *
+     * @param template   A template of the string resource containing GString variables for substitution
+     * @param dataSource name=value pairs that will be used for var substitution. Each entry will result in another
+     *                   resource being returned
+     */
+    default Iterable<GroovyTemplateTestResource> groovy(TestResource<String> template,
+                                                        Iterable<? extends Map<String, String>> dataSource) {
+        return groovy(template, dataSource, GStringTemplateEngine.class);
+    }
+
+    /**
+     * A way of paramaterizing resources from a data source too large to load, such as csv(URL); each resource is
+     * created as the returned iterable reaches its row, rather than all up front. The resources can be given to the
+     * builders with methods such as requests, expectations and responses, which read the data source to the end
+     *
+     * @param template   A template of the string resource containing GString variables for substitution
+     * @param dataSource name=value pairs that will be used for var substitution. Each entry will result in another
+     *                   resource being returned
+     */
+    default Iterable<GroovyTemplateTestResource> groovy(String template,
+                                                        Iterable<? extends Map<String, String>> dataSource) {
+        return groovy(new PlainTextTestResource(template), dataSource, GStringTemplateEngine.class);
+    }
+
+    /**
+     * @param template       A template of the string resource containing template-appropriate variables for substitution
+     * @param dataSource     name=value pairs that will be used for var substitution. Each entry will result in another
+     *                       resource being returned as the returned iterable reaches it
+     * @param templateEngine The template engine, more can be found here: http://groovy.codehaus.org/Groovy+Templates
+     */
+    default Iterable<GroovyTemplateTestResource> groovy(final TestResource<String> template,
+                                                        final Iterable<? extends Map<String, String>> dataSource,
+                                                        Class<? extends TemplateEngine> templateEngine) {
+        final TemplateEngine engine;
+        try {
+            //a single engine lets every row share the compiled template
+            engine = templateEngine.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        return () -> new Iterator<GroovyTemplateTestResource>() {
+            private final Iterator<? extends Map<String, String>> rows = dataSource.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public GroovyTemplateTestResource next() {
+                return new GroovyTemplateTestResource(engine, template, rows.next());
+            }
+        };
+    }
+
     class VariablePair {
         private String name;
         private String value;
@@ -417,9 +484,37 @@ public interface MorcMethods {
         return resources;
     }
 
+    /**
+     * @param groovyResources Groovy templates which result in an XML document, such as those created from a data source
+     * @return XmlTestResources that will be evaluated (at runtime) from the Groovy resources, created as the returned
+     * iterable reaches each Groovy resource
+     */
+    default Iterable<XmlRuntimeTestResource> xml(final Iterable<GroovyTemplateTestResource> groovyResources) {
+        final XmlUtilities xmlUtilities = getXmlUtilities();
+        return () -> new Iterator<XmlRuntimeTestResource>() {
+            private final Iterator<GroovyTemplateTestResource> resources = groovyResources.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return resources.hasNext();
+            }
+
+            @Override
+            public XmlRuntimeTestResource next() {
+                return new XmlRuntimeTestResource(resources.next(), xmlUtilities);
+            }
+        };
+    }
+
+    /**
+     * Renders the template for every use, as it may depend on more than its variables, but only parses the result
+     * again when the rendered text differs from the last time
+     */
     class XmlRuntimeTestResource implements Predicate, Processor {
         private TestResource<String> resource;
         private XmlUtilities xmlUtilities;
+        //the last rendered text and the XML resource parsed from it
+        private volatile Map.Entry<String, XmlTestResource> parsed;
 
         public XmlRuntimeTestResource(TestResource<String> resource, XmlUtilities xmlUtilities) {
             this.resource = resource;
@@ -443,7 +538,13 @@ public interface MorcMethods {
 
         private XmlTestResource getResource() {
             try {
-                return new XmlTestResource(xmlUtilities.getXmlAsDocument(resource.getValue()));
+                String value = resource.getValue();
+                Map.Entry<String, XmlTestResource> lastParsed = parsed;
+                if (lastParsed != null && lastParsed.getKey().equals(value)) return lastParsed.getValue();
+
+                XmlTestResource xmlResource = new XmlTestResource(xmlUtilities.getXmlAsDocument(value), xmlUtilities);
+                parsed = new AbstractMap.SimpleImmutableEntry<>(value, xmlResource);
+                return xmlResource;
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -465,8 +566,35 @@ public interface MorcMethods {
         return resources;
     }
 
+    /**
+     * @param groovyResources Groovy templates which result in a JSON document, such as those created from a data source
+     * @return JsonTestResources that will be evaluated (at runtime) from the Groovy resources, created as the returned
+     * iterable reaches each Groovy resource
+     */
+    default Iterable<JsonRuntimeTestResource> json(final Iterable<GroovyTemplateTestResource> groovyResources) {
+        return () -> new Iterator<JsonRuntimeTestResource>() {
+            private final Iterator<GroovyTemplateTestResource> resources = groovyResources.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return resources.hasNext();
+            }
+
+            @Override
+            public JsonRuntimeTestResource next() {
+                return new JsonRuntimeTestResource(resources.next());
+            }
+        };
+    }
+
+    /**
+     * Renders the template for every use, as it may depend on more than its variables, but only parses the result
+     * again when the rendered text differs from the last time
+     */
     class JsonRuntimeTestResource implements Processor, Predicate {
         private TestResource<String> resource;
+        //the last rendered text and the JSON resource created from it
+        private volatile Map.Entry<String, JsonTestResource> parsed;
 
         public JsonRuntimeTestResource(TestResource<String> resource) {
             this.resource = resource;
@@ -489,7 +617,13 @@ public interface MorcMethods {
 
         private JsonTestResource getResource() {
             try {
-                return new JsonTestResource(resource.getValue());
+                String value = resource.getValue();
+                Map.Entry<String, JsonTestResource> lastParsed = parsed;
+                if (lastParsed != null && lastParsed.getKey().equals(value)) return lastParsed.getValue();
+
+                JsonTestResource jsonResource = new JsonTestResource(value);
+                parsed = new AbstractMap.SimpleImmutableEntry<>(value, jsonResource);
+                return jsonResource;
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -505,30 +639,18 @@ public interface MorcMethods {
 
     /**
      * @param urlpath An Ant-style path to a directory containing test resources for (expected) input and output
-     * @return An array of InputStreams that can be used as test resources
+     * @return An array of InputStreams that can be used as test resources; each one only opens its resource when it is
+     * first read, and closes it once it has been read to the end
      */
     default InputStream[] dir(String urlpath) {
-        List<URL> resourceUrls = new ArrayList<>();
-        List<InputStream> resourceStreams = new ArrayList<>();
-
-        try {
-            Resource[] resources;
-            resources = new PathMatchingResourcePatternResolver().getResources(urlpath);
-            for (Resource resource : resources) {
-                resourceUrls.add(resource.getURL());
-            }
-
-            //sort them alphabetically first
-            Collections.sort(resourceUrls, (o1, o2) -> o1.toString().compareTo(o2.toString()));
+        List<URL> resourceUrls = getResourceDirectory().getUrls(urlpath);
+        InputStream[] resourceStreams = new InputStream[resourceUrls.size()];
 
-            for (URL url : resourceUrls) {
-                resourceStreams.add(url.openStream());
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        for (int i = 0; i < resourceStreams.length; i++) {
+            resourceStreams[i] = new LazyUrlInputStream(resourceUrls.get(i));
         }
 
-        return resourceStreams.toArray(new InputStream[resourceStreams.size()]);
+        return resourceStreams;
     }
 
     /**
@@ -538,43 +660,34 @@ public interface MorcMethods {
      * @return A list of variablename-value pairs
      */
     default List<Map<String, String>> csv(TestResource<String> csvResource) {
-        CSVReader reader;
         List<Map<String, String>> output = new ArrayList<>();
-        String[] headers;
-
-        try {
-            reader = new CSVReader(new StringReader(csvResource.getValue()));
-
-            headers = reader.readNext();
-
-            if (new LinkedHashSet<>(Arrays.asList(headers)).size() != headers.length)
-                throw new IllegalArgumentException("The headers for the csv " + csvResource + " are not unique");
-
-            String[] nextLine;
-            int line = 2;
-            while ((nextLine = reader.readNext()) != null) {
-                Map<String, String> variableMap = new HashMap<>();
-
-                if (nextLine.length != headers.length)
-                    throw new IllegalArgumentException("The CSV resource " + csvResource + " has a different " +
-                            "number of headers and values for line " + line);
-
-                for (int i = 0; i < nextLine.length; i++) {
-                    variableMap.put(headers[i], nextLine[i]);
-                }
-
-                output.add(variableMap);
-                line++;
-            }
-        } catch (IllegalArgumentException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        for (Map<String, String> row : new CsvDataSource(csvResource)) {
+            output.add(row);
         }
 
         return output;
     }
 
+    /**
+     * A datasource for the groovy template that reads rows as they are needed, for CSV files too large to load
+     *
+     * @param csvUrl A url pointing to a CSV file that contains var values. A header line sets the name of the variables
+     * @return A data source that reads the variablename-value pairs of each row as it is iterated over
+     */
+    default CsvDataSource csv(URL csvUrl) {
+        return new CsvDataSource(csvUrl);
+    }
+
+    /**
+     * A datasource for the groovy template that reads rows as they are needed, for CSV files too large to load
+     *
+     * @param csvFile A CSV file that contains var values. A header line sets the name of the variables
+     * @return A data source that reads the variablename-value pairs of each row as it is iterated over
+     */
+    default CsvDataSource csv(File csvFile) {
+        return new CsvDataSource(csvFile);
+    }
+
     /**
      * @param statusCode the HTTP status code to use or validate
      * @return A resource for non-200 HTTP responses
@@ -686,7 +799,7 @@ public interface MorcMethods {
      * @param namespaces Namespace definitions used within the XPath expression
      */
     default XPathBuilder xpath(String expression, NS... namespaces) {
-        XPathBuilder builder = new XPathBuilder(expression);
+        XPathBuilder builder = new CachedBodyXPathBuilder(expression);
         for (NS namespace : namespaces) {
             builder.namespace(namespace.getPrefix(), namespace.getUri());
         }
@@ -1,5 +1,6 @@
 package nz.ac.auckland.morc;
 
+import nz.ac.auckland.morc.load.LoadTestSpecification;
 import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
 import org.junit.runner.Runner;
 import org.junit.runner.notification.RunNotifier;
@@ -7,7 +8,10 @@ import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.Suite;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
 import org.junit.runners.model.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
@@ -15,27 +19,36 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * A heavily modified version of JUnit's Parameterized class that
  * assumes there's a public static void configure() method available
  * to configure a set of test specifications which will then be retrieved
- * using the getSpecifications method of MorcTest
+ * using the getSpecifications method of MorcTest. Specifications are run one after another unless the builder
+ * provides a specification concurrency greater than 1, in which case that many specifications will be run at the same
+ * time (each part of a single specification is still run in sequence)
  * Any copyright for similar code will be under the EPL license for JUnit
  *
  * @author David MacDonald - d.macdonald@auckland.ac.nz
  */
 public class MorcParameterized extends Suite {
 
+    private static final Logger logger = LoggerFactory.getLogger(MorcParameterized.class);
+
     private class TestClassRunnerForParameters extends BlockJUnit4ClassRunner {
         private final OrchestratedTestSpecification specification;
+        private final LoadTestSpecification loadTestSpecification;
         private final String name;
 
         TestClassRunnerForParameters(Class<?> type,
                                      OrchestratedTestSpecification specification,
+                                     LoadTestSpecification loadTestSpecification,
                                      String name) throws InitializationError {
             super(type);
             this.specification = specification;
+            this.loadTestSpecification = loadTestSpecification;
             this.name = name;
         }
 
@@ -44,6 +57,8 @@ public class MorcParameterized extends Suite {
             Constructor co = getTestClass().getJavaClass().getConstructor();
             MorcTest test = (MorcTest) co.newInstance();
             test.setSpecification(specification);
+            test.setLoadTestSpecification(loadTestSpecification);
+            test.setPersistentMocks(persistentMocks);
 
             return test;
         }
@@ -75,6 +90,7 @@ public class MorcParameterized extends Suite {
     }
 
     private final ArrayList<Runner> runners = new ArrayList<>();
+    private PersistentMocks persistentMocks;
 
     @SuppressWarnings("unchecked")
     public MorcParameterized(Class<? extends MorcTestBuilder> klass) throws Throwable {
@@ -82,14 +98,20 @@ public class MorcParameterized extends Suite {
 
         Method getSpecifications = MorcTestBuilder.class.getDeclaredMethod("getSpecifications");
         getSpecifications.setAccessible(true);
-        List<OrchestratedTestSpecification> specifications = (List) getSpecifications.invoke(klass.newInstance());
+        MorcTestBuilder builder = klass.newInstance();
+        List<OrchestratedTestSpecification> specifications = (List) getSpecifications.invoke(builder);
+        persistentMocks = builder.getPersistentMocks();
 
-        createRunnersForParameters(specifications);
+        createRunnersForParameters(specifications, builder.getLoadTestSpecifications());
+        configureScheduler(builder.getSpecificationConcurrency());
     }
 
     public MorcParameterized(MorcTestBuilder builder) throws Throwable {
         super(AnonymousMorc.class, Collections.<Runner>emptyList());
-        createRunnersForParameters(builder.getSpecifications());
+        List<OrchestratedTestSpecification> specifications = builder.getSpecifications();
+        persistentMocks = builder.getPersistentMocks();
+        createRunnersForParameters(specifications, builder.getLoadTestSpecifications());
+        configureScheduler(builder.getSpecificationConcurrency());
     }
 
     @Override
@@ -97,15 +119,99 @@ public class MorcParameterized extends Suite {
         return runners;
     }
 
-    private void createRunnersForParameters(List<OrchestratedTestSpecification> specifications) throws InitializationError {
+    @Override
+    protected Statement classBlock(RunNotifier notifier) {
+        final Statement statement = super.classBlock(notifier);
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                try {
+                    statement.evaluate();
+                } finally {
+                    //the persistent mocks are only stopped once every specification in the suite has run
+                    persistentMocks.stop();
+                }
+            }
+        };
+    }
+
+    private void createRunnersForParameters(List<OrchestratedTestSpecification> specifications,
+                                            List<LoadTestSpecification> loadTestSpecifications) throws InitializationError {
         int i = 0;
         for (OrchestratedTestSpecification specification : specifications) {
             String name = String.format("%d: %s", i, specification.getDescription());
             TestClassRunnerForParameters runner = new TestClassRunnerForParameters(
-                    getTestClass().getJavaClass(), specification,
+                    getTestClass().getJavaClass(), specification, null,
+                    name);
+            runners.add(runner);
+            i++;
+        }
+
+        for (LoadTestSpecification loadTestSpecification : loadTestSpecifications) {
+            String name = String.format("%d: %s", i, loadTestSpecification.getDescription());
+            TestClassRunnerForParameters runner = new TestClassRunnerForParameters(
+                    getTestClass().getJavaClass(), loadTestSpecification.getSpecification(), loadTestSpecification,
                     name);
             runners.add(runner);
             i++;
         }
     }
+
+    private void configureScheduler(int concurrency) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("The specification concurrency must be at least 1");
+
+        if (concurrency > 1) setScheduler(new ConcurrentSpecificationScheduler(concurrency));
+    }
+
+    /**
+     * Runs the specification runners on a fixed number of worker threads; each runner will run all of the parts
+     * of its specification on the same thread
+     */
+    private static class ConcurrentSpecificationScheduler implements RunnerScheduler {
+        private final int concurrency;
+        private final Queue<Runnable> specificationRunners = new ConcurrentLinkedQueue<>();
+
+        ConcurrentSpecificationScheduler(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            specificationRunners.add(childStatement);
+        }
+
+        @Override
+        public void finished() {
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                Thread worker = new Thread(() -> {
+                    try {
+                        Runnable specificationRunner;
+                        while ((specificationRunner = specificationRunners.poll()) != null)
+                            specificationRunner.run();
+                    } finally {
+                        //JUnit will only run the after class methods on the main thread
+                        try {
+                            MorcTest.stopSharedContexts();
+                        } catch (Exception e) {
+                            logger.warn("Unable to stop the shared contexts for specification worker thread", e);
+                        }
+                    }
+                }, "morc-specification-" + i);
+                workers.add(worker);
+                worker.start();
+            }
+
+            try {
+                for (Thread worker : workers)
+                    worker.join();
+            } catch (InterruptedException e) {
+                specificationRunners.clear();
+                for (Thread worker : workers)
+                    worker.interrupt();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
@@ -0,0 +1,357 @@
+package nz.ac.auckland.morc;
+
+import nz.ac.auckland.morc.endpointoverride.EndpointOverride;
+import org.apache.camel.*;
+import org.apache.camel.builder.ExpressionBuilder;
+import org.apache.camel.builder.PredicateBuilder;
+import org.apache.camel.model.ModelCamelContext;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.model.TryDefinition;
+import org.apache.camel.model.language.ConstantExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Camel 2.15 has no route templates, so the mock and publish routes are instead built once per context for each
+ * endpoint and kept running between specification parts. Everything specific to a part (its mock endpoints,
+ * expectations, preprocessors and response validation) is provided by a binding that the part swaps in for as long
+ * as it runs, which saves Camel from modelling, starting and stopping routes for every part.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+class MorcRouteTemplates {
+
+    private static final Logger logger = LoggerFactory.getLogger(MorcRouteTemplates.class);
+
+    private static final String ROUTE_ID_PREFIX = MorcTest.class.getCanonicalName() + ".";
+    private static final Map<CamelContext, MorcRouteTemplates> contextTemplates = new WeakHashMap<>();
+
+    private final ModelCamelContext context;
+    private final Map<String, Binding> mockBindings = new HashMap<>();
+    private final Map<String, Binding> publishBindings = new HashMap<>();
+    private final List<RouteDefinition> routeDefinitions = new ArrayList<>();
+
+    private MorcRouteTemplates(ModelCamelContext context) {
+        this.context = context;
+    }
+
+    /**
+     * @return The route templates that have been created in the context
+     */
+    public static MorcRouteTemplates forContext(ModelCamelContext context) {
+        synchronized (contextTemplates) {
+            return contextTemplates.computeIfAbsent(context, MorcRouteTemplates::new);
+        }
+    }
+
+    /**
+     * @param endpointUri       The endpoint URI that a mock will listen to
+     * @param endpointOverrides The overrides to apply to the endpoint if the route is created
+     * @return The binding for the route consuming from the endpoint, creating the route if it doesn't already exist
+     * or was created with different endpoint overrides (compared by class)
+     * @throws IllegalArgumentException if the route must be recreated while another part is bound to it
+     */
+    public synchronized Binding mockRoute(String endpointUri, Collection<EndpointOverride> endpointOverrides)
+            throws Exception {
+        Set<Object> configuration = configuration(endpointOverrides);
+        Binding binding = mockBindings.get(endpointUri);
+        if (binding != null) {
+            if (binding.configuration.equals(configuration)) return binding;
+            removeRoute(binding);
+        }
+
+        Endpoint endpoint = context.getEndpoint(endpointUri);
+        for (EndpointOverride override : endpointOverrides)
+            override.overrideEndpoint(endpoint);
+
+        binding = new Binding("mock endpoint " + endpointUri, endpoint, configuration);
+
+        RouteDefinition mockRouteDefinition = new RouteDefinition();
+        if (isStreamCaching(context)) mockRouteDefinition.streamCaching();
+        mockRouteDefinition.from(endpoint)
+                .routeId(ROUTE_ID_PREFIX + "mock." + endpointUri)
+                .process(exchange -> exchange.setProperty(MorcTest.RECEIVE_TIME_PROPERTY, System.nanoTime()))
+                .process(bodyCaching(context))
+                .setProperty("endpointUri", new ConstantExpression(endpointUri))
+                .log(LoggingLevel.DEBUG, "Endpoint ${property.endpointUri} received body: ${body}, headers: ${headers}")
+                .process(binding)
+                .log(LoggingLevel.DEBUG, "Endpoint ${property.endpointUri} returning back to the client body: ${body}, headers: ${headers}");
+
+        addRoute(mockRouteDefinition, binding);
+        mockBindings.put(endpointUri, binding);
+        return binding;
+    }
+
+    /**
+     * @param endpointUri       The endpoint URI of the target service under testing
+     * @param targetEndpoint    The endpoint messages will be sent to, or null if a test bean is used instead
+     * @param testBean          The test bean that will be run for each message rather than sending to an endpoint
+     * @param endpointOverrides The overrides that have been applied to the target endpoint
+     * @return The binding for the route that sends messages to the target, creating the route if it doesn't already
+     * exist or was created for a different target, test bean or endpoint overrides (compared by class); messages
+     * should be sent to the endpoint of the binding
+     * @throws IllegalArgumentException if the route must be recreated while another part is bound to it
+     */
+    public synchronized Binding publishRoute(String endpointUri, Endpoint targetEndpoint, Processor testBean,
+                                             Collection<EndpointOverride> endpointOverrides) throws Exception {
+        Set<Object> configuration = configuration(endpointOverrides);
+        configuration.add(targetEndpoint);
+        configuration.add(testBean);
+
+        Binding binding = publishBindings.get(endpointUri);
+        if (binding != null) {
+            if (binding.configuration.equals(configuration)) return binding;
+            removeRoute(binding);
+        }
+
+        binding = new Binding("publishing to " + endpointUri, context.getEndpoint("direct:" + UUID.randomUUID()),
+                configuration);
+
+        RouteDefinition publishRouteDefinition = new RouteDefinition();
+        if (isStreamCaching(context)) publishRouteDefinition.streamCaching();
+        TryDefinition tryDefinition = publishRouteDefinition.from(binding.getEndpoint())
+                .routeId(ROUTE_ID_PREFIX + "publish." + endpointUri)
+                .log(LoggingLevel.DEBUG, "Sending to endpoint " + endpointUri + " body: ${body}, headers: ${headers}")
+                .handleFault()
+                .doTry(); //for some reason onException().continued(true) doesn't work
+
+        if (testBean == null) tryDefinition.to(targetEndpoint);
+        else tryDefinition.process(testBean);
+
+        tryDefinition
+                .process(bodyCaching(context))
+                .doCatch(Throwable.class).end()
+                .process(exchange -> exchange.setProperty(MorcTest.RECEIVE_TIME_PROPERTY, System.nanoTime()))
+                .choice().when(PredicateBuilder.isNotNull(ExpressionBuilder.exchangePropertyExpression(Exchange.EXCEPTION_CAUGHT)))
+                .log(LoggingLevel.DEBUG, "Received exception response to endpoint " + endpointUri
+                        + " exception: ${exception}, headers: ${headers}")
+                .otherwise()
+                .log(LoggingLevel.DEBUG, "Received response from endpoint " + endpointUri
+                        + " body: ${body}, headers: ${headers}")
+                .end()
+                .process(binding);
+
+        addRoute(publishRouteDefinition, binding);
+        publishBindings.put(endpointUri, binding);
+        return binding;
+    }
+
+    /**
+     * Removes all of the routes from the context, for when the context won't be used by another specification
+     */
+    public void removeRoutes() throws Exception {
+        synchronized (contextTemplates) {
+            contextTemplates.remove(context);
+        }
+
+        synchronized (this) {
+            for (Binding binding : mockBindings.values())
+                binding.close();
+            for (RouteDefinition routeDefinition : routeDefinitions)
+                context.removeRouteDefinition(routeDefinition);
+            routeDefinitions.clear();
+            mockBindings.clear();
+            publishBindings.clear();
+        }
+    }
+
+    /**
+     * @return A processor that reads the body into a byte[] so that it can be read by each predicate and processor,
+     * unless stream caching is enabled, in which case bodies larger than the spool threshold are left as a stream cache
+     * spooled to disk
+     */
+    private static Processor bodyCaching(final CamelContext context) {
+        if (!isStreamCaching(context))
+            return exchange -> {
+                Message message = exchange.getIn();
+                if (message.getBody() != null) message.setBody(message.getMandatoryBody(byte[].class));
+            };
+
+        return exchange -> {
+            Message message = exchange.getIn();
+            Object body = message.getBody();
+            if (body == null || body instanceof byte[]) return;
+
+            StreamCache cache = body instanceof StreamCache ? (StreamCache) body :
+                    context.getStreamCachingStrategy().cache(exchange);
+            if (cache == null) {
+                message.setBody(message.getMandatoryBody(byte[].class));
+                return;
+            }
+
+            cache.reset();
+            if (cache.inMemory())
+                message.setBody(context.getTypeConverter().mandatoryConvertTo(byte[].class, exchange, cache));
+            else
+                message.setBody(cache);
+        };
+    }
+
+    /**
+     * @return true if the routes created in the context should cache streams; MorcTest enables the stream caching
+     * strategy without enabling stream caching for every route of the context
+     */
+    private static boolean isStreamCaching(CamelContext context) {
+        return context.isStreamCaching() || context.getStreamCachingStrategy().isEnabled();
+    }
+
+    private void addRoute(RouteDefinition routeDefinition, Binding binding) throws Exception {
+        context.addRouteDefinition(routeDefinition);
+        routeDefinitions.add(routeDefinition);
+        binding.routeDefinition = routeDefinition;
+    }
+
+    //a route is replaced rather than reused when a part needs it configured differently
+    private void removeRoute(Binding binding) throws Exception {
+        if (binding.isBound())
+            throw new IllegalArgumentException("The route for " + binding.description + " is being used by another " +
+                    "specification part with different endpoint configuration - specifications that run " +
+                    "concurrently must not share endpoints");
+
+        logger.debug("Recreating the route for {} as its endpoint configuration has changed", binding.description);
+        binding.close();
+        context.removeRouteDefinition(binding.routeDefinition);
+        routeDefinitions.remove(binding.routeDefinition);
+    }
+
+    /**
+     * @return The configuration that a route was created with; overrides are compared by class as they are usually
+     * created anew for each specification
+     */
+    private static Set<Object> configuration(Collection<EndpointOverride> endpointOverrides) {
+        Set<Object> configuration = new HashSet<>();
+        for (EndpointOverride override : endpointOverrides)
+            configuration.add(override.getClass());
+        return configuration;
+    }
+
+    /**
+     * The part of a long-lived route that is provided by the specification part currently running. As when each part
+     * had its own route, a message arriving while no part is bound waits for the next part to be bound, and a message
+     * carrying the id of an earlier part (see MorcTest.PART_ID_PROPERTY), such as a late or delayed message, is logged
+     * and processed by the bound part. A part may instead ask for these stray messages to be rejected back to their
+     * sender (see MorcTest.isRejectStrayMessages) so that they can't affect the part that is running. Messages without
+     * a part id, e.g. those that arrive over HTTP, are always processed by the bound part.
+     */
+    static class Binding implements Processor {
+        //how often a message waiting for a part checks whether the context is stopping
+        private static final long UNBOUND_CHECK_INTERVAL = 1000;
+
+        private final String description;
+        private final Endpoint endpoint;
+        private final Set<Object> configuration;
+        private final AtomicReference<BoundPart> boundPart = new AtomicReference<>();
+        private RouteDefinition routeDefinition;
+        private volatile boolean rejectStrayMessages = false;
+        private volatile boolean closed = false;
+
+        Binding(String description, Endpoint endpoint, Set<Object> configuration) {
+            this.description = description;
+            this.endpoint = endpoint;
+            this.configuration = configuration;
+        }
+
+        /**
+         * @return The endpoint the route consumes from
+         */
+        public Endpoint getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * @param partId    The id of the specification part, which its messages carry as an exchange property
+         * @param processor The processor that will handle each message for the specification part
+         */
+        public void bind(String partId, Processor processor) {
+            bind(partId, processor, false);
+        }
+
+        /**
+         * @param partId              The id of the specification part, which its messages carry as an exchange property
+         * @param processor           The processor that will handle each message for the specification part
+         * @param rejectStrayMessages Whether messages for another part, or arriving while no part is bound, should be
+         *                            rejected rather than processed by the bound (or next) part
+         */
+        public void bind(String partId, Processor processor, boolean rejectStrayMessages) {
+            if (!boundPart.compareAndSet(null, new BoundPart(partId, processor)))
+                throw new IllegalStateException("The route for " + description + " is already being used by another " +
+                        "specification part - specifications that run concurrently must not share endpoints");
+            this.rejectStrayMessages = rejectStrayMessages;
+
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * @param processor The processor previously bound by the specification part
+         */
+        public void unbind(Processor processor) {
+            BoundPart part = boundPart.get();
+            if (part != null && part.processor == processor) boundPart.compareAndSet(part, null);
+        }
+
+        boolean isBound() {
+            return boundPart.get() != null;
+        }
+
+        /**
+         * Releases any message waiting for a part to be bound, as the route is being removed
+         */
+        void close() {
+            closed = true;
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        @Override
+        public void process(Exchange exchange) throws Exception {
+            String partId = exchange.getProperty(MorcTest.PART_ID_PROPERTY, String.class);
+            BoundPart part = boundPart.get();
+
+            if (part == null && !rejectStrayMessages) {
+                logger.warn("A message arrived for {} while no specification part was expecting it, it will be " +
+                        "processed by the next part", description);
+                part = awaitPart();
+            }
+
+            if (part == null)
+                throw new IllegalStateException("No specification part is currently expecting messages for " +
+                        description);
+
+            if (partId != null && !partId.equals(part.id)) {
+                if (rejectStrayMessages) {
+                    logger.warn("A message for the specification part {} arrived for {} after the part had finished",
+                            partId, description);
+                    throw new IllegalStateException("The specification part " + partId + " had finished when a " +
+                            "message for it arrived for " + description);
+                }
+                logger.warn("A message for the specification part {} arrived for {} after the part had finished, " +
+                        "it will be processed by the part {}", new Object[]{partId, description, part.id});
+            }
+
+            part.processor.process(exchange);
+        }
+
+        private synchronized BoundPart awaitPart() throws InterruptedException {
+            BoundPart part;
+            while ((part = boundPart.get()) == null && !closed && !endpoint.getCamelContext().getStatus().isStopping())
+                wait(UNBOUND_CHECK_INTERVAL);
+            return part;
+        }
+    }
+
+    private static class BoundPart {
+        private final String id;
+        private final Processor processor;
+
+        BoundPart(String id, Processor processor) {
+            this.id = id;
+            this.processor = processor;
+        }
+    }
+}
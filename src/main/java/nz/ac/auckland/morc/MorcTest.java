@@ -1,19 +1,20 @@
 package nz.ac.auckland.morc;
 
 import nz.ac.auckland.morc.endpointoverride.EndpointOverride;
+import nz.ac.auckland.morc.load.LoadTestResult;
+import nz.ac.auckland.morc.load.LoadTestSpecification;
+import nz.ac.auckland.morc.mock.ArrivalRecorder;
+import nz.ac.auckland.morc.mock.EndpointOrderingValidator;
 import nz.ac.auckland.morc.mock.MockDefinition;
+import nz.ac.auckland.morc.mock.RecordingMock;
 import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
 import org.apache.camel.*;
-import org.apache.camel.component.dataset.DataSet;
-import org.apache.camel.component.dataset.DataSetComponent;
-import org.apache.camel.component.dataset.DataSetEndpoint;
-import org.apache.camel.component.mock.MockEndpoint;
 import org.apache.camel.component.properties.PropertiesComponent;
-import org.apache.camel.model.ProcessorDefinition;
-import org.apache.camel.model.RouteDefinition;
-import org.apache.camel.model.TryDefinition;
-import org.apache.camel.model.language.ConstantExpression;
+import org.apache.camel.component.seda.SedaEndpoint;
+import org.apache.camel.spi.StreamCachingStrategy;
 import org.apache.camel.test.spring.CamelSpringTestSupport;
+import org.apache.camel.util.MessageHelper;
+import org.apache.commons.io.FileUtils;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -22,8 +23,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.support.AbstractXmlApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This carries out the actual testing of the orchestrated specification specification - ensuring
@@ -39,8 +43,31 @@ public class MorcTest extends CamelSpringTestSupport {
     private String[] springContextPaths = new String[]{};
     private String propertiesLocationPath;
     private OrchestratedTestSpecification specification;
+    private LoadTestSpecification loadTestSpecification;
+    private LatencyReport latencyReport;
+    private PersistentMocks persistentMocks = PersistentMocks.NONE;
     private static final Logger logger = LoggerFactory.getLogger(MorcTest.class);
 
+    /**
+     * The exchange property holding the System.nanoTime() at which a message was sent to the target endpoint; this is
+     * carried by any message the artifact under testing sends to a mock endpoint in the same JVM while processing it
+     */
+    public static final String SEND_TIME_PROPERTY = "morcSendTime";
+
+    /**
+     * The exchange property holding the System.nanoTime() at which a response was received from the target endpoint,
+     * or at which a message arrived at a mock endpoint
+     */
+    public static final String RECEIVE_TIME_PROPERTY = "morcReceiveTime";
+
+    /**
+     * The exchange property identifying the specification part that sent a message, so that the routes shared between
+     * parts only give a part the messages sent by it (or messages that don't carry the property, such as over HTTP)
+     */
+    public static final String PART_ID_PROPERTY = "morcPartId";
+
+    private static final AtomicLong partSequence = new AtomicLong();
+
     public MorcTest() {
         configureXmlUnit();
     }
@@ -73,6 +100,20 @@ public class MorcTest extends CamelSpringTestSupport {
         this.specification = specification;
     }
 
+    /**
+     * @param loadTestSpecification A load test that will be run instead of the specification
+     */
+    protected void setLoadTestSpecification(LoadTestSpecification loadTestSpecification) {
+        this.loadTestSpecification = loadTestSpecification;
+    }
+
+    /**
+     * @param persistentMocks The mocks declared for the suite that this test is part of
+     */
+    void setPersistentMocks(PersistentMocks persistentMocks) {
+        this.persistentMocks = persistentMocks;
+    }
+
     /**
      * Override this to return a list of Spring context paths on the classpath
      *
@@ -91,6 +132,104 @@ public class MorcTest extends CamelSpringTestSupport {
         return propertiesLocationPath;
     }
 
+    /**
+     * Override this to change where the latencies of each specification are written; each specification appends a
+     * single line of JSON to the file. This defaults to the morc.latencyReportPath system property, and reports are
+     * not written unless it is set
+     *
+     * @return A path to the file latency reports are appended to, or null if they should not be written
+     */
+    public String getLatencyReportPath() {
+        return System.getProperty("morc.latencyReportPath");
+    }
+
+    /**
+     * @return The latencies recorded while running the specification, or null if it has not been run
+     */
+    public LatencyReport getLatencyReport() {
+        return latencyReport;
+    }
+
+    /**
+     * Override this to boot the Spring and Camel contexts (including any routes for the artifact under testing) once
+     * for all of the specifications in this test class rather than once per specification; only the mock and
+     * publishing routes of each specification part are added and removed between specifications. When specifications
+     * are run concurrently each worker thread will have its own shared context.
+     *
+     * @return true if the contexts should be shared between specifications
+     */
+    public boolean isSharedContext() {
+        return false;
+    }
+
+    /**
+     * Override this to stop waiting for the messages of a specification part as soon as there is a violation that no
+     * further waiting could fix: a message arriving out of order, more messages arriving at a mock than it expects
+     * (including any message to an unreceived mock), a message to an endpoint ordered mock or a response from the
+     * target endpoint not satisfying its predicate. The first such violation is reported as the failure of the part.
+     *
+     * @return true if specification parts should fail as soon as a definitive violation occurs
+     */
+    public boolean isFailFast() {
+        return false;
+    }
+
+    /**
+     * Override this to reject stray messages to the mock endpoints of a shared context back to their sender rather
+     * than have them processed by another specification part: a message carrying the id of a part that has finished
+     * (e.g. a late duplicate, or one delayed by the artifact under testing) and any message arriving while no part is
+     * bound. By default a stray message is logged and processed by the part that is running (or waits for the next
+     * part to start), as happens when each part has its own routes; this can cause a later part to fail because of a
+     * message from an earlier one. Messages arriving over HTTP carry no part id, so are always processed by the part
+     * that is running.
+     *
+     * @return true if stray messages should be rejected with an exception
+     */
+    public boolean isRejectStrayMessages() {
+        return false;
+    }
+
+    /**
+     * Override this to end the quiescence period of a mock (the wait to show that no further messages arrive) early
+     * once the Camel context has no exchanges in flight and none waiting on a seda or vm queue. This saves most of the
+     * reassertion period of each mock, but messages that are pending elsewhere can't be seen - an aggregator waiting
+     * for its completion timeout, a timer or quartz route, redelivery by an external broker or a message sent to a
+     * persistent mock - so a mock expecting no further messages may pass when one was still to arrive. Only enable
+     * this when the artifact under testing has none of these.
+     *
+     * @return true if the quiescence period of each mock should end once the context is idle
+     */
+    public boolean isIdleQuiescence() {
+        return false;
+    }
+
+    /**
+     * Override this to enable stream caching on the mock and publishing routes so that message bodies larger than the
+     * returned number of bytes are spooled to a temporary file and read lazily by each predicate and processor, rather
+     * than being read into memory; smaller bodies are still read into a byte[]. Stream caching isn't enabled for the
+     * rest of the Camel context, so the routes of the artifact under testing see the same message bodies either way.
+     * Mocks and specifications should retain few messages when this is used, as retained messages are read into
+     * memory. This defaults to the morc.spoolThreshold system property or -1, which reads every body into memory
+     *
+     * @return The size in bytes above which message bodies are spooled to disk, or -1 to disable spooling
+     */
+    public long getSpoolThreshold() {
+        return Long.getLong("morc.spoolThreshold", -1);
+    }
+
+    @Override
+    public boolean isCreateCamelContextPerClass() {
+        return isSharedContext();
+    }
+
+    /**
+     * Stops any contexts that were shared between the specifications that ran on the current thread
+     */
+    static void stopSharedContexts() throws Exception {
+        tearDownAfterClass();
+        tearSpringDownAfterClass();
+    }
+
     protected AbstractXmlApplicationContext createApplicationContext() {
         return new ClassPathXmlApplicationContext(getSpringContextPaths());
     }
@@ -106,6 +245,16 @@ public class MorcTest extends CamelSpringTestSupport {
             context.addComponent("properties", properties);
         }
 
+        long spoolThreshold = getSpoolThreshold();
+        //only the mock and publishing routes cache streams (see MorcRouteTemplates), so the routes under testing see
+        //the same bodies with or without spooling
+        if (spoolThreshold > 0) {
+            StreamCachingStrategy streamCachingStrategy = context.getStreamCachingStrategy();
+            streamCachingStrategy.setSpoolThreshold(spoolThreshold);
+            streamCachingStrategy.setEnabled(true);
+            context.addService(streamCachingStrategy);
+        }
+
         return context;
     }
 
@@ -121,129 +270,152 @@ public class MorcTest extends CamelSpringTestSupport {
     @Test
     public void runOrchestratedTest() throws Exception {
 
+        if (loadTestSpecification != null) {
+            runLoadTest();
+            return;
+        }
+
         if (specification == null)
             throw new IllegalArgumentException("A specification must be set in order to run an orchestrated test");
 
         logger.info("Starting the test for specification: {} which consists of {} parts", specification.getDescription(),
                 specification.getPartCount());
 
-        OrchestratedTestSpecification currentPart = specification;
-        int partCount = 1;
-        do {
-            //there are some instances where we want to delay running parts of the test
-            Thread.sleep(currentPart.getExecuteDelay().delay());
-            logger.debug("Starting test specification {} part {}", specification.getDescription(), partCount);
-            runSpecificationPart(currentPart);
-            logger.info("Successfully completed test specification {} part {}", specification.getDescription(), partCount);
+        latencyReport = new LatencyReport(specification.getDescription());
 
-            currentPart = currentPart.getNextPart();
-            partCount++;
-        } while (currentPart != null);
+        try {
+            OrchestratedTestSpecification currentPart = specification;
+            int partCount = 1;
+            do {
+                //there are some instances where we want to delay running parts of the test
+                Thread.sleep(currentPart.getExecuteDelay().delay());
+                logger.debug("Starting test specification {} part {}", specification.getDescription(), partCount);
+                runSpecificationPart(currentPart);
+                logger.info("Successfully completed test specification {} part {}", specification.getDescription(), partCount);
+
+                currentPart = currentPart.getNextPart();
+                partCount++;
+            } while (currentPart != null);
+        } finally {
+            //the routes are kept for later specifications only if they share the context
+            if (!isSharedContext()) MorcRouteTemplates.forContext(context).removeRoutes();
+
+            //latencies of failed specifications are still worth knowing about
+            logger.info("Latencies for specification {}: {}", specification.getDescription(), latencyReport);
+            writeLatencyReport();
+        }
 
         logger.info("Successfully completed the specification: " + specification.getDescription());
     }
 
-    private void runSpecificationPart(final OrchestratedTestSpecification spec) throws Exception {
+    private void writeLatencyReport() {
+        String latencyReportPath = getLatencyReportPath();
+        if (latencyReportPath == null) return;
 
-        Set<MockEndpoint> mockEndpoints = new HashSet<>();
-        Set<RouteDefinition> createdRoutes = new HashSet<>();
-        MockEndpoint orderCheckMock = context.getEndpoint("mock:" + UUID.randomUUID(), MockEndpoint.class);
-        orderCheckMock.expectedMessageCount(spec.getTotalMockMessageCount());
-        final MockEndpoint sendingMockEndpoint = context.getEndpoint("mock:responses-" + UUID.randomUUID(), MockEndpoint.class);
+        //specifications may be running concurrently so we need to make sure lines aren't interleaved
+        synchronized (MorcTest.class) {
+            try {
+                File latencyReportFile = new File(latencyReportPath);
+                FileUtils.writeStringToFile(latencyReportFile, latencyReport.toJson() + System.lineSeparator(),
+                        "UTF-8", true);
+            } catch (IOException e) {
+                logger.warn("Unable to write the latency report to " + latencyReportPath, e);
+            }
+        }
+    }
 
-        Map<MockEndpoint, MockDefinition> mockEndpointMap = new HashMap<>();
+    private void runLoadTest() throws Exception {
+        logger.info("Starting the load test: {}", loadTestSpecification.getDescription());
+
+        LoadTestResult result;
+        try {
+            result = new LoadTestRunner(context, loadTestSpecification, persistentMocks).run();
+        } finally {
+            if (!isSharedContext()) MorcRouteTemplates.forContext(context).removeRoutes();
+        }
+        logger.info("Completed the load test: {} with result {}", loadTestSpecification.getDescription(), result);
+
+        if (loadTestSpecification.getResultHandler() != null)
+            loadTestSpecification.getResultHandler().accept(result);
+
+        double errorRate = Math.max(result.getErrorRate(), result.getMockErrorRate());
+        if (errorRate > loadTestSpecification.getMaximumErrorRate())
+            throw new AssertionError("The load test " + loadTestSpecification.getDescription() + " had an error rate of "
+                    + errorRate + " which is higher than the maximum of " + loadTestSpecification.getMaximumErrorRate()
+                    + ": " + result);
+    }
+
+    private void runSpecificationPart(final OrchestratedTestSpecification spec) throws Exception {
+
+        //the long-lived routes are bound to this part while it runs
+        MorcRouteTemplates routeTemplates = MorcRouteTemplates.forContext(context);
+        final String partId = spec.getDescription() + "#" + partSequence.incrementAndGet();
+        Map<MorcRouteTemplates.Binding, Processor> boundRoutes = new LinkedHashMap<>();
+
+        List<RecordingMock> recordingMocks = new ArrayList<>();
+        //the sequence of arrivals at the mock endpoints is recorded so that their ordering can be validated
+        final ArrivalRecorder arrivalRecorder = new ArrivalRecorder(spec.getTotalMockMessageCount());
+        final EndpointOrderingValidator orderingValidator = new EndpointOrderingValidator(context,
+                spec.getEndpointNodesOrdering());
+        //when failing fast a definitive violation will cancel the remaining waits of this part
+        final FailFastSignal failFastSignal = isFailFast() ? new FailFastSignal() : null;
+        //responses from the target endpoint are validated as they arrive
+        final ResponseRecorder responseRecorder = new ResponseRecorder(spec);
 
         try {
             Collection<MockDefinition> mockDefinitions = spec.getMockDefinitions();
             logger.trace("Setting up {} mock definitions for the test {}", mockDefinitions.size(), spec.getDescription());
 
             for (final MockDefinition mockDefinition : mockDefinitions) {
-                final MockEndpoint mockEndpoint = context.getEndpoint("mock:" + UUID.randomUUID(), MockEndpoint.class);
-                logger.trace("Obtained new mock: {}", mockEndpoint.getEndpointUri());
-                mockEndpoints.add(mockEndpoint);
-                mockEndpointMap.put(mockEndpoint, mockDefinition);
-
-                mockEndpoint.setExpectedMessageCount(mockDefinition.getExpectedMessageCount());
                 logger.trace("Mock for endpoint {} has {} expected messages",
                         mockDefinition.getEndpointUri(), mockDefinition.getExpectedMessageCount());
 
-                for (int i = 0; i < mockDefinition.getProcessors().size(); i++)
-                    mockEndpoint.whenExchangeReceived(i + 1, mockDefinition.getProcessors().get(i));
-
-                //result wait time is the *maximum* amount of time we'll wait for all messages
-                mockEndpoint.setResultWaitTime(mockDefinition.getResultWaitTime());
-
-                //assert period is the time we'll wait before rechecking everything is fine (i.e. no more messages)
-                mockEndpoint.setAssertPeriod(mockDefinition.getReassertionPeriod());
-
-                if (mockDefinition.isEndpointOrdered())
-                    mockEndpoint.expectedMessagesMatches(mockDefinition.getPredicates()
-                            .toArray(new Predicate[mockDefinition.getPredicates().size()]));
-                else
-                    mockEndpoint.expects(new Runnable() {
-                        public void run() {
-                            //need to use a new copy each time for the case of re-assertion
-                            ArrayList<Predicate> predicatesCopy = new ArrayList<>(mockDefinition.getPredicates());
-                            for (Exchange exchange : mockEndpoint.getExchanges())
-                                assertTrue("Message " + exchange + " was received but not matched against a predicate " +
-                                        "on endpoint " + mockDefinition.getEndpointUri(), remove(predicatesCopy, exchange));
-                        }
-
-                        private boolean remove(ArrayList<Predicate> predicates, Exchange exchange) {
-                            for (Iterator<Predicate> iterator = predicates.iterator(); iterator.hasNext(); ) {
-                                if (iterator.next().matches(exchange)) {
-                                    iterator.remove();
-                                    return true;
-                                }
-                            }
-                            return false;
-                        }
-                    });
-
-                //this will be the route used to receive the message and validate/process the exchange
-                RouteDefinition mockRouteDefinition = new RouteDefinition();
-                mockRouteDefinition.from(mockDefinition.getEndpointUri())
-                        .convertBodyTo(byte[].class)
-                        .routeId(MorcTest.class.getCanonicalName() + "." + mockDefinition.getEndpointUri())
-                        .setProperty("endpointUri", new ConstantExpression(mockDefinition.getEndpointUri()))
-                        .log(LoggingLevel.DEBUG, "Endpoint ${property.endpointUri} received body: ${body}, headers: ${headers}");
-
-                ProcessorDefinition pd = mockRouteDefinition;
-
-                if (mockDefinition.getLenientSelector() != null)
-                    pd = mockRouteDefinition
-                            .choice()
-                            .when(mockDefinition.getLenientSelector())
-                            .log(LoggingLevel.INFO, "Endpoint ${property.endpointUri} received a message for lenient processing")
-                            .process(mockDefinition.getLenientProcessor())
-                            .endChoice()
-                            .otherwise();
-
-                pd.wireTap(orderCheckMock.getEndpointUri())
-                        .log(LoggingLevel.INFO, "Endpoint ${property.endpointUri} received a message");
-
-                if (mockDefinition.getMockFeedPreprocessor() != null)
-                    pd.process(mockDefinition.getMockFeedPreprocessor());
-
-                pd.to(mockEndpoint)
-                        .log(LoggingLevel.DEBUG, "Endpoint ${property.endpointUri} returning back to the client body: ${body}, headers: ${headers}")
-                        .end();
-
-                Endpoint targetEndpoint = getMandatoryEndpoint(mockDefinition.getEndpointUri());
-                for (EndpointOverride override : mockDefinition.getEndpointOverrides())
-                    override.overrideEndpoint(targetEndpoint);
-
-                context.addRouteDefinition(mockRouteDefinition);
-                createdRoutes.add(mockRouteDefinition);
-            }
+                final RecordingMock recordingMock = new RecordingMock(mockDefinition);
+                recordingMocks.add(recordingMock);
 
-            //set up sending messages to the target system under testing
-            sendingMockEndpoint.expectedMessageCount(spec.getProcessors().size());
-            sendingMockEndpoint.expectedMessagesMatches(spec.getPredicates().toArray(new Predicate[spec.getPredicates().size()]));
+                if (failFastSignal != null) {
+                    recordingMock.setViolationListener(violation -> failFastSignal.violated("Mock expectation for endpoint: " +
+                            mockDefinition.getEndpointUri() + " " + violation + " for test " + spec.getDescription()));
+                    failFastSignal.onViolation(recordingMock::abort);
+                }
 
-            //setup the route for sending messages
-            DataSetComponent component = new DataSetComponent();
-            component.setCamelContext(context);
+                //this will be used by the mock route to validate/process each exchange received during this part
+                Processor mockPartProcessor = exchange -> {
+                    //only messages carrying the send time of the message that caused them (e.g. not over HTTP)
+                    Long sendTime = exchange.getProperty(SEND_TIME_PROPERTY, Long.class);
+                    if (sendTime != null)
+                        latencyReport.getMockArrivalLatencies(mockDefinition.getEndpointUri())
+                                .record(exchange.getProperty(RECEIVE_TIME_PROPERTY, Long.class) - sendTime);
+
+                    if (mockDefinition.getLenientSelector() != null && mockDefinition.getLenientSelector().matches(exchange)) {
+                        logger.info("Endpoint {} received a message for lenient processing", mockDefinition.getEndpointUri());
+                        MessageHelper.resetStreamCache(exchange.getIn());
+                        mockDefinition.getLenientProcessor().process(exchange);
+                        return;
+                    }
+
+                    String arrivalUri = exchange.getFromEndpoint().getEndpointUri();
+                    arrivalRecorder.record(arrivalUri, exchange.getProperty(RECEIVE_TIME_PROPERTY, Long.class));
+                    //when failing fast the ordering is validated as messages arrive rather than from the recording
+                    if (failFastSignal != null && !orderingValidator.arrived(arrivalUri))
+                        failFastSignal.violated(orderingValidator.getViolation() + " for test " + spec.getDescription());
+
+                    logger.info("Endpoint {} received a message", mockDefinition.getEndpointUri());
+
+                    if (mockDefinition.getMockFeedPreprocessor() != null) {
+                        MessageHelper.resetStreamCache(exchange.getIn());
+                        mockDefinition.getMockFeedPreprocessor().process(exchange);
+                    }
+
+                    recordingMock.process(exchange);
+                };
+
+                MorcRouteTemplates.Binding mockRouteBinding = persistentMocks
+                        .templatesFor(mockDefinition.getEndpointUri(), routeTemplates)
+                        .mockRoute(mockDefinition.getEndpointUri(), mockDefinition.getEndpointOverrides());
+                mockRouteBinding.bind(partId, mockPartProcessor, isRejectStrayMessages());
+                boundRoutes.put(mockRouteBinding, mockPartProcessor);
+            }
 
             //apply endpoint overrides to the producer endpoint
             Endpoint targetEndpoint = getMandatoryEndpoint(spec.getEndpointUri());
@@ -253,157 +425,187 @@ public class MorcTest extends CamelSpringTestSupport {
             //a latch to check whether message publishing has completed
             final CountDownLatch latch = new CountDownLatch(spec.getProcessors().size());
 
-            MessagePublishDataSet dataSet = new MessagePublishDataSet(spec.getProcessors());
-            DataSetEndpoint dataSetEndpoint = new DataSetEndpoint("dataset:" + UUID.randomUUID(), component, dataSet);
-            dataSetEndpoint.setProduceDelay(spec.getSendInterval());
-
-            RouteDefinition publishRouteDefinition = new RouteDefinition();
-
-            //ensure we have completed sending each exchange
-            sendingMockEndpoint.whenAnyExchangeReceived(exchange -> latch.countDown());
-
-            TryDefinition tryDefinition = publishRouteDefinition.from(dataSetEndpoint)
-                    .routeId(MorcTest.class.getCanonicalName() + ".publish")
-                    .log(LoggingLevel.DEBUG, "Sending to endpoint " + spec.getEndpointUri() + " body: ${body}, headers: ${headers}")
-                    .handleFault()
-                    .doTry(); //for some reason onException().continued(true) doesn't work
-
-            if (spec.getTestBean() == null) tryDefinition.to(targetEndpoint);
-            else tryDefinition.process(spec.getTestBean());
-
-            tryDefinition
-                    .convertBodyTo(byte[].class)
-                    .doCatch(Throwable.class).end()
-                    .choice().when(property(Exchange.EXCEPTION_CAUGHT).isNotNull())
-                    .log(LoggingLevel.DEBUG, "Received exception response to endpoint " + spec.getEndpointUri()
-                            + " exception: ${exception}, headers: ${headers}")
-                    .otherwise()
-                    .log(LoggingLevel.DEBUG, "Received response from endpoint " + spec.getEndpointUri()
-                            + " body: ${body}, headers: ${headers}")
-                    .end();
+            //this will be used by the publish route to handle each response received during this part
+            Processor publishPartProcessor = exchange -> {
+                try {
+                    latencyReport.getRoundTripLatencies().record(exchange.getProperty(RECEIVE_TIME_PROPERTY, Long.class)
+                            - exchange.getProperty(SEND_TIME_PROPERTY, Long.class));
+
+                    if (spec.getMockFeedPreprocessor() != null) {
+                        MessageHelper.resetStreamCache(exchange.getIn());
+                        spec.getMockFeedPreprocessor().process(exchange);
+                    }
+
+                    String violation = responseRecorder.record(exchange);
+                    if (violation != null && failFastSignal != null)
+                        failFastSignal.violated("The target endpoint " + spec.getEndpointUri() + " on test " +
+                                spec.getDescription() + " provided an invalid response - " + violation);
+                } finally {
+                    //ensure we have completed sending each exchange
+                    latch.countDown();
+                }
+            };
+
+            MorcRouteTemplates.Binding publishRouteBinding = routeTemplates.publishRoute(spec.getEndpointUri(),
+                    spec.getTestBean() == null ? targetEndpoint : null, spec.getTestBean(), spec.getEndpointOverrides());
+            publishRouteBinding.bind(partId, publishPartProcessor, isRejectStrayMessages());
+            boundRoutes.put(publishRouteBinding, publishPartProcessor);
+
+            //each message is stamped with the time it's sent once it has been populated
+            List<Processor> publishProcessors = new ArrayList<>();
+            for (final Processor processor : spec.getProcessors()) {
+                publishProcessors.add(exchange -> {
+                    processor.process(exchange);
+                    exchange.setProperty(PART_ID_PROPERTY, partId);
+                    exchange.setProperty(SEND_TIME_PROPERTY, System.nanoTime());
+                });
+            }
 
-            if (spec.getMockFeedPreprocessor() != null) publishRouteDefinition.process(spec.getMockFeedPreprocessor());
+            final MessagePublisher publisher = new MessagePublisher(context, publishRouteBinding.getEndpoint(),
+                    publishProcessors, spec.getConcurrency(), spec.getSendInterval());
 
-            context.addRouteDefinition(publishRouteDefinition.to(sendingMockEndpoint));
+            //there's no point waiting for the remaining messages to be published
+            if (failFastSignal != null) failFastSignal.onViolation(() -> {
+                publisher.cancel();
+                while (latch.getCount() > 0) latch.countDown();
+            });
 
-            createdRoutes.add(publishRouteDefinition);
+            logger.trace("Publishing messages with up to {} in-flight", spec.getConcurrency());
+            publisher.publish();
 
             //wait until we have sent all messages
             logger.trace("Starting wait for all messages to be published");
             latch.await();
             logger.trace("Messages have all been published");
 
-            try {
-                logger.trace("Starting sending mock endpoint assertion");
-                sendingMockEndpoint.assertIsSatisfied();
-            } catch (AssertionError e) {
-                throw new AssertionError("The target endpoint " + spec.getEndpointUri() + " on test " +
-                        spec.getDescription() + " provided an " + "invalid response: " + e.getMessage(), e);
-            }
-            logger.debug("Completion of message publishing with response validation was successful");
+            //all mocks measure their waiting from the same point so that quiescence periods don't add up
+            final long mockWaitStartTime = System.currentTimeMillis();
 
-            for (MockEndpoint mockEndpoint : mockEndpoints) {
-                logger.trace("Starting mock assertion for endpoint {}", mockEndpoint.getEndpointUri());
+            long maximumMockWaitTime = 0;
+            for (MockDefinition mockDefinition : spec.getMockDefinitions())
+                maximumMockWaitTime = Math.max(maximumMockWaitTime,
+                        mockDefinition.getResultWaitTime() + mockDefinition.getReassertionPeriod());
+            final long mockWaitDeadline = mockWaitStartTime + maximumMockWaitTime;
+
+            //every assertion waits concurrently so a part costs the longest single wait rather than the sum of them
+            List<Callable<Void>> assertions = new ArrayList<>();
+
+            assertions.add(() -> {
                 try {
-                    mockEndpoint.assertIsSatisfied();
+                    logger.trace("Starting response assertion");
+                    responseRecorder.assertIsSatisfied();
                 } catch (AssertionError e) {
-                    throw new AssertionError("Mock expectation for endpoint: " + mockEndpointMap.get(mockEndpoint).getEndpointUri() +
-                            " failed validation: " + e.getMessage() + " for test " + spec.getDescription(), e);
+                    throw new AssertionError("The target endpoint " + spec.getEndpointUri() + " on test " +
+                            spec.getDescription() + " provided an " + "invalid response: " + e.getMessage(), e);
                 }
-                logger.debug("Successfully completed mock assertion for endpoint {}", mockEndpoint.getEndpointUri());
-            }
-
-            //we know that all messages will have arrived by this point therefore we are unconcerned with wait/assertion times
-            logger.trace("Starting assertion for ordering checking");
-            try {
-                orderCheckMock.assertIsSatisfied();
-            } catch (AssertionError e) {
-                throw new AssertionError("The total number of expected messages did not arrive at the mock services for test " +
-                        spec.getDescription(), e);
+                logger.debug("Completion of message publishing with response validation was successful");
+                return null;
+            });
+
+            for (final RecordingMock recordingMock : recordingMocks) {
+                final String mockEndpointUri = recordingMock.getMockDefinition().getEndpointUri();
+                assertions.add(() -> {
+                    logger.trace("Starting mock assertion for endpoint {}", mockEndpointUri);
+                    if (isIdleQuiescence()) recordingMock.await(mockWaitStartTime, this::isContextIdle);
+                    else recordingMock.await(mockWaitStartTime);
+                    try {
+                        recordingMock.assertIsSatisfied();
+                    } catch (AssertionError e) {
+                        throw new AssertionError("Mock expectation for endpoint: " + mockEndpointUri +
+                                " failed validation: " + e.getMessage() + " for test " + spec.getDescription(), e);
+                    }
+                    logger.debug("Successfully completed mock assertion for endpoint {}", mockEndpointUri);
+                    return null;
+                });
             }
-            logger.debug("Successfully validated that all messages arrive to endpoints in the correct order");
-
-            //We now need to check that messages have arrived in the correct order
-            Collection<OrchestratedTestSpecification.EndpointNode> endpointNodes = new ArrayList<>(spec.getEndpointNodesOrdering());
-            for (Exchange e : orderCheckMock.getExchanges()) {
-                OrchestratedTestSpecification.EndpointNode node = findEndpointNodeMatch(endpointNodes, e.getFromEndpoint());
 
-                StringBuilder expectedNodeEndpoints = new StringBuilder();
-                for (OrchestratedTestSpecification.EndpointNode endpointNode : endpointNodes) {
-                    expectedNodeEndpoints.append(endpointNode.getEndpointUri()).append(",");
+            assertions.add(() -> {
+                logger.trace("Starting assertion for ordering checking");
+                int arrivalCount = arrivalRecorder.await(mockWaitDeadline);
+                if (arrivalCount != spec.getTotalMockMessageCount())
+                    throw new AssertionError("The total number of expected messages did not arrive at the mock services for test " +
+                            spec.getDescription() + " - " + arrivalCount + " arrived when " +
+                            spec.getTotalMockMessageCount() + " were expected");
+                logger.debug("Successfully validated that all expected messages arrived at the mock services");
+
+                if (failFastSignal == null) {
+                    for (ArrivalRecorder.Arrival arrival : arrivalRecorder.getArrivals()) {
+                        if (!orderingValidator.arrived(arrival.getEndpointUri())) break;
+                    }
                 }
 
-                String expectedNodeEndpointsOutput = expectedNodeEndpoints.toString();
-                if (expectedNodeEndpointsOutput.length() > 0)
-                    expectedNodeEndpointsOutput = expectedNodeEndpointsOutput.substring(0, expectedNodeEndpointsOutput.length() - 1);
-
-                logger.trace("Expected arrivals to endpoints {}", expectedNodeEndpointsOutput);
+                String orderingViolation = orderingValidator.getViolation();
+                if (orderingViolation != null) fail(orderingViolation + " for test " + spec.getDescription());
+                logger.debug("Successfully validated that messages arrived to endpoints in the correct order");
+                return null;
+            });
 
-                //this means we don't expect to have seen the message at this point
-                assertNotNull("A message to the endpoint " + e.getFromEndpoint().getEndpointUri() +
-                        " was unexpected - one of " + expectedNodeEndpointsOutput + " was expected for test " +
-                        spec.getDescription(), node);
-
-                //we've encountered a message to this endpoint and should remove it from the set
-                endpointNodes.remove(node);
-                endpointNodes.addAll(node.getChildrenNodes());
-            }
+            if (failFastSignal != null && failFastSignal.getViolation() != null) throw failFastSignal.getViolation();
 
-            logger.debug("Successfully validated that messages arrived to endpoints in the correct order");
+            runAssertions(assertions, failFastSignal);
 
         } finally {
-            for (RouteDefinition routeDefinition : createdRoutes)
-                context.removeRouteDefinition(routeDefinition);
-
-            sendingMockEndpoint.reset();
-
-            for (MockEndpoint mockEndpoint : mockEndpoints)
-                mockEndpoint.reset();
-
-            orderCheckMock.reset();
+            for (Map.Entry<MorcRouteTemplates.Binding, Processor> boundRoute : boundRoutes.entrySet())
+                boundRoute.getKey().unbind(boundRoute.getValue());
         }
     }
 
-    private OrchestratedTestSpecification.EndpointNode findEndpointNodeMatch(Collection<OrchestratedTestSpecification.EndpointNode> endpointNodes, Endpoint endpoint) {
-        for (OrchestratedTestSpecification.EndpointNode node : endpointNodes) {
-            if (endpoint.equals(context.getEndpoint(node.getEndpointUri()))) {
-                logger.debug("Message arrived in the correct order to endpoint {}", node.getEndpointUri());
-                return node;
-            }
-        }
-        //not found, which should cause an exception
-        return null;
-    }
-}
+    /**
+     * @return true if the context has no exchanges in flight and none waiting on a seda or vm queue, in which case
+     * the artifact under testing can't send any further messages to the mocks of a part
+     */
+    private boolean isContextIdle() {
+        if (context.getInflightRepository().size() > 0) return false;
 
-class MessagePublishDataSet implements DataSet {
+        for (Endpoint endpoint : context.getEndpoints()) {
+            if (endpoint instanceof SedaEndpoint && ((SedaEndpoint) endpoint).getCurrentQueueSize() > 0) return false;
+        }
 
-    private static final Logger logger = LoggerFactory.getLogger(MessagePublishDataSet.class);
+        return true;
+    }
 
-    private List<Processor> processors;
+    /**
+     * Runs each of the assertions concurrently and, once they have all completed, reports the first failure (in the
+     * order the assertions were provided) with any further failures added as suppressed exceptions. When failing fast
+     * a definitive violation cancels the assertions still waiting and is reported instead.
+     */
+    private void runAssertions(List<Callable<Void>> assertions, FailFastSignal failFastSignal) throws Exception {
+        ExecutorService executor = context.getExecutorServiceManager()
+                .newFixedThreadPool(this, "MorcAssertion", assertions.size());
 
-    public MessagePublishDataSet(List<Processor> processors) {
-        this.processors = processors;
-    }
+        Throwable failure = null;
+        try {
+            final List<Future<Void>> results = new ArrayList<>();
+            for (Callable<Void> assertion : assertions)
+                results.add(executor.submit(assertion));
 
-    @Override
-    public void populateMessage(Exchange exchange, long messageIndex) throws Exception {
-        logger.trace("Sending message {}", messageIndex);
-        processors.get((int) messageIndex).process(exchange);
-    }
+            if (failFastSignal != null) failFastSignal.onViolation(() -> {
+                for (Future<Void> result : results)
+                    result.cancel(true);
+            });
 
-    @Override
-    public long getSize() {
-        return processors.size();
-    }
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (CancellationException e) {
+                    //this will be reported by the fail fast signal
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = e.getCause();
+                    else failure.addSuppressed(e.getCause());
+                }
+            }
+        } finally {
+            context.getExecutorServiceManager().shutdownNow(executor);
+        }
 
-    @Override
-    public void assertMessageExpected(DataSetEndpoint endpoint, Exchange expected, Exchange actual, long messageIndex) throws Exception {
-        throw new UnsupportedOperationException();
-    }
+        //a definitive violation is the real reason for failure, even if other assertions failed first
+        if (failFastSignal != null && failFastSignal.getViolation() != null) {
+            AssertionError violation = failFastSignal.getViolation();
+            if (failure != null) violation.addSuppressed(failure);
+            throw violation;
+        }
 
-    @Override
-    public long getReportCount() {
-        return processors.size();
+        if (failure instanceof Exception) throw (Exception) failure;
+        if (failure instanceof Error) throw (Error) failure;
     }
 }
@@ -3,6 +3,7 @@ package nz.ac.auckland.morc;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.core.joran.spi.JoranException;
+import nz.ac.auckland.morc.load.LoadTestSpecification;
 import nz.ac.auckland.morc.mock.MockDefinition;
 import nz.ac.auckland.morc.mock.builder.AsyncMockDefinitionBuilder;
 import nz.ac.auckland.morc.mock.builder.SyncMockDefinitionBuilder;
@@ -10,6 +11,7 @@ import nz.ac.auckland.morc.mock.builder.UnreceivedMockDefinitionBuilder;
 import nz.ac.auckland.morc.specification.AsyncOrchestratedTestBuilder;
 import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
 import nz.ac.auckland.morc.specification.SyncOrchestratedTestBuilder;
+import nz.ac.auckland.morc.utility.ResourceDirectory;
 import org.apache.camel.util.URISupport;
 import org.junit.internal.TextListener;
 import org.junit.runner.JUnitCore;
@@ -20,18 +22,82 @@ import org.slf4j.LoggerFactory;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 @RunWith(value = MorcParameterized.class)
 public abstract class MorcTestBuilder extends MorcTest implements MorcMethods {
 
     private List<OrchestratedTestSpecification.OrchestratedTestSpecificationBuilderInit> specificationBuilders = new ArrayList<>();
+    private List<LoadTestSpecification.LoadTestSpecificationBuilder> loadTestBuilders = new ArrayList<>();
+    private Map<OrchestratedTestSpecification.OrchestratedTestSpecificationBuilderInit, OrchestratedTestSpecification>
+            builtSpecifications = new IdentityHashMap<>();
+    private Set<String> persistentMockUris = new LinkedHashSet<>();
+    private ResourceDirectory resourceDirectory = new ResourceDirectory();
 
     protected abstract void configure();
 
+    /**
+     * @return A resource directory that resolves each path given to dir() once for the specifications of this builder
+     */
+    @Override
+    public ResourceDirectory getResourceDirectory() {
+        return resourceDirectory;
+    }
+
+    /**
+     * Override this to run multiple specifications at the same time; each specification will still run its parts
+     * in sequence. Specifications that run concurrently must not listen to the same mock endpoints.
+     *
+     * @return The maximum number of specifications that will be run at the same time, defaults to 1
+     */
+    protected int getSpecificationConcurrency() {
+        return 1;
+    }
+
+    /**
+     * Declares a mock endpoint that keeps consuming for all of the specifications in this suite rather than being
+     * started and stopped for each one (for example, a Jetty endpoint for an authentication service that almost every
+     * specification calls). Specifications still declare their own mocks for the endpoint, and the mock definitions of
+     * each specification part are swapped in while it runs. The route is only recreated for a specification whose
+     * endpoint overrides (compared by class) differ from those of the specification that created it. A message that
+     * arrives between specifications is processed by the next one unless isRejectStrayMessages is overridden.
+     * <p>
+     * The routes of persistent mocks run in a Camel context of their own that has the properties component (see
+     * getPropertiesLocation) and the stream caching of getSpoolThreshold, but none of the components or beans of the
+     * Spring context. Only endpoints that can be reached from another context in the same JVM, such as jetty, cxf or
+     * vm, are supported; direct and seda endpoints and references to beans are rejected.
+     *
+     * @param endpointUri The endpoint URI that the mocks of specifications will listen to
+     * @throws IllegalArgumentException if the endpoint can't be used from the context of the persistent mocks
+     */
+    protected void persistentMock(String endpointUri) {
+        if (endpointUri.startsWith("http")) endpointUri = "jetty:" + endpointUri;
+
+        //mock definitions normalize their endpoint URI, so this must match it
+        try {
+            endpointUri = URISupport.normalizeUri(endpointUri);
+        } catch (URISyntaxException | UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (endpointUri.startsWith("direct:") || endpointUri.startsWith("seda:"))
+            throw new IllegalArgumentException("The persistent mock endpoint " + endpointUri + " can only receive " +
+                    "messages from its own Camel context; use a vm endpoint instead");
+
+        if (endpointUri.contains("=#"))
+            throw new IllegalArgumentException("The persistent mock endpoint " + endpointUri + " refers to a bean, " +
+                    "which is not available to the context of the persistent mocks");
+
+        persistentMockUris.add(endpointUri);
+    }
+
+    /**
+     * @return The (normalized) endpoint URIs of the mocks that persist between the specifications of this suite
+     */
+    protected Set<String> getPersistentMockUris() {
+        return Collections.unmodifiableSet(persistentMockUris);
+    }
+
     /**
      * @param endpointUri The endpoint URI that an asynchronous message should be sent to
      * @param description A description for the test specification that clearly identifies it
@@ -78,6 +144,20 @@ public abstract class MorcTestBuilder extends MorcTest implements MorcMethods {
         return builder;
     }
 
+    /**
+     * @param description          A description for the load test that clearly identifies it
+     * @param specificationBuilder The builder (as returned by syncTest or asyncTest) for the specification whose
+     *                             requests, expectations and mocks will be used for each iteration of the load test
+     * @return A load test builder for configuring the rate, duration or iterations of the load test
+     */
+    protected LoadTestSpecification.LoadTestSpecificationBuilder loadTest(String description,
+                                                                          OrchestratedTestSpecification.OrchestratedTestSpecificationBuilderInit<?> specificationBuilder) {
+        LoadTestSpecification.LoadTestSpecificationBuilder builder =
+                new LoadTestSpecification.LoadTestSpecificationBuilder(description, specificationBuilder);
+        loadTestBuilders.add(builder);
+        return builder;
+    }
+
     /**
      * @param endpointUri The endpoint URI that a mock should listen to; should follow the Apache Camel URI format
      */
@@ -159,12 +239,33 @@ public abstract class MorcTestBuilder extends MorcTest implements MorcMethods {
 
         for (OrchestratedTestSpecification.OrchestratedTestSpecificationBuilderInit builder : specificationBuilders) {
             OrchestratedTestSpecification spec = builder.build();
+            builtSpecifications.put(builder, spec);
             specifications.add(spec);
         }
 
         return specifications;
     }
 
+    //this must be called after getSpecifications so that the persistent mocks have been declared
+    protected PersistentMocks getPersistentMocks() {
+        if (persistentMockUris.isEmpty()) return PersistentMocks.NONE;
+        return new PersistentMocks(persistentMockUris, getPropertiesLocation(), getSpoolThreshold());
+    }
+
+    //this must be called after getSpecifications so that the specifications are only built once
+    protected List<LoadTestSpecification> getLoadTestSpecifications() {
+        List<LoadTestSpecification> loadTestSpecifications = new ArrayList<>();
+
+        for (LoadTestSpecification.LoadTestSpecificationBuilder builder : loadTestBuilders) {
+            //a specification builder can't be built twice, so we only build those not registered as a specification
+            OrchestratedTestSpecification spec = builtSpecifications.get(builder.getSpecificationBuilder());
+            if (spec == null) spec = builder.getSpecificationBuilder().build();
+            loadTestSpecifications.add(builder.build(spec));
+        }
+
+        return loadTestSpecifications;
+    }
+
     /**
      * A method to allow tests to be run from simple scripts without all the JUnit infrastructure
      *
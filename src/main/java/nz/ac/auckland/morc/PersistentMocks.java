@@ -0,0 +1,87 @@
+package nz.ac.auckland.morc;
+
+import org.apache.camel.component.properties.PropertiesComponent;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.model.ModelCamelContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The mock endpoints declared for a whole suite of specifications. Their routes are created in a context of their own
+ * the first time a specification uses them and keep consuming until the suite has finished, so (for example) a Jetty
+ * port is only bound once; each specification part still binds the mock definitions it declares for the endpoint.
+ * The context only has the properties component and stream caching of the test, not its Spring components or beans.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+class PersistentMocks {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentMocks.class);
+
+    /**
+     * For when no mocks have been declared for the suite
+     */
+    static final PersistentMocks NONE = new PersistentMocks(Collections.<String>emptySet(), null, -1);
+
+    private final Set<String> endpointUris;
+    private final String propertiesLocation;
+    private final long spoolThreshold;
+    private ModelCamelContext context;
+
+    /**
+     * @param endpointUris       The endpoint URIs of the mocks that persist between specifications
+     * @param propertiesLocation A path to a properties file for resolving the endpoint URIs, or null if there is none
+     * @param spoolThreshold     The size in bytes above which message bodies are spooled to disk, or -1 to disable
+     */
+    public PersistentMocks(Collection<String> endpointUris, String propertiesLocation, long spoolThreshold) {
+        this.endpointUris = new HashSet<>(endpointUris);
+        this.propertiesLocation = propertiesLocation;
+        this.spoolThreshold = spoolThreshold;
+    }
+
+    /**
+     * @param endpointUri      The endpoint URI that a mock will listen to
+     * @param contextTemplates The route templates of the context the specification is running in
+     * @return The route templates of the suite if the endpoint is persistent, otherwise those of the context
+     */
+    public MorcRouteTemplates templatesFor(String endpointUri, MorcRouteTemplates contextTemplates) throws Exception {
+        if (!endpointUris.contains(endpointUri)) return contextTemplates;
+
+        synchronized (this) {
+            if (context == null) {
+                logger.debug("Starting the context for the persistent mocks {}", endpointUris);
+                DefaultCamelContext persistentContext = new DefaultCamelContext();
+                if (propertiesLocation != null) {
+                    PropertiesComponent properties = new PropertiesComponent();
+                    properties.setLocation(propertiesLocation);
+                    persistentContext.addComponent("properties", properties);
+                }
+                //the mock routes read bodies the same way as in the context of the test (see MorcTest.getSpoolThreshold)
+                if (spoolThreshold > 0) {
+                    persistentContext.setStreamCaching(true);
+                    persistentContext.getStreamCachingStrategy().setSpoolThreshold(spoolThreshold);
+                }
+                persistentContext.start();
+                context = persistentContext;
+            }
+            return MorcRouteTemplates.forContext(context);
+        }
+    }
+
+    /**
+     * Stops the routes of the persistent mocks once no more specifications will be run
+     */
+    public synchronized void stop() throws Exception {
+        if (context == null) return;
+
+        logger.debug("Stopping the context for the persistent mocks {}", endpointUris);
+        MorcRouteTemplates.forContext(context).removeRoutes();
+        context.stop();
+        context = null;
+    }
+}
@@ -0,0 +1,90 @@
+package nz.ac.auckland.morc;
+
+import nz.ac.auckland.morc.mock.ExchangeRetention;
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import org.apache.camel.Exchange;
+import org.apache.camel.Predicate;
+import org.apache.camel.util.MessageHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates each response from the target endpoint of a specification part against the predicate for its request
+ * as it arrives, keeping only the responses chosen by the retention of the specification for describing failures
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+class ResponseRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseRecorder.class);
+
+    private final OrchestratedTestSpecification spec;
+    private final AtomicInteger receivedCount = new AtomicInteger();
+    //the index of the first response that didn't satisfy its predicate, or -1 if there has been none
+    private final AtomicInteger failedIndex = new AtomicInteger(-1);
+    private final ConcurrentSkipListMap<Integer, Exchange> retainedExchanges = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param spec The specification part whose responses are validated
+     */
+    public ResponseRecorder(OrchestratedTestSpecification spec) {
+        this.spec = spec;
+    }
+
+    /**
+     * @param exchange A response from the target endpoint
+     * @return A description of why the response is invalid, or null if it satisfies the predicate for its request
+     */
+    public String record(Exchange exchange) {
+        int arrival = receivedCount.getAndIncrement();
+        //responses can arrive in any order when sent concurrently so we need to find the request that was sent
+        int index = (spec.getConcurrency() == 1 ? arrival :
+                exchange.getProperty(MessagePublisher.PUBLISH_INDEX_PROPERTY, Integer.class));
+
+        String violation = null;
+        if (index < spec.getPredicates().size()) {
+            Predicate predicate = spec.getPredicates().get(index);
+            boolean satisfied;
+            try {
+                MessageHelper.resetStreamCache(exchange.getIn());
+                satisfied = predicate.matches(exchange);
+            } catch (RuntimeException e) {
+                logger.warn("Predicate " + predicate + " failed evaluating the response to message " + index, e);
+                satisfied = false;
+            }
+
+            if (!satisfied) {
+                violation = "The response to message " + index + " did not satisfy the predicate " + predicate;
+                logger.debug(violation);
+                failedIndex.compareAndSet(-1, index);
+            }
+        }
+
+        ExchangeRetention retention = spec.getRetention();
+        if (retention.retain(index, violation == null))
+            retainedExchanges.put(index, ExchangeRetention.copy(exchange));
+
+        return violation;
+    }
+
+    /**
+     * @throws AssertionError if a response was not received for every request or a response did not satisfy its
+     *                        predicate
+     */
+    public void assertIsSatisfied() {
+        int expectedCount = spec.getProcessors().size();
+        if (receivedCount.get() != expectedCount)
+            throw new AssertionError("Received message count. Expected: <" + expectedCount + "> but was: <" +
+                    receivedCount.get() + ">");
+
+        int index = failedIndex.get();
+        if (index >= 0) {
+            Exchange exchange = retainedExchanges.get(index);
+            throw new AssertionError("The response to message " + index + " did not satisfy the predicate " +
+                    spec.getPredicates().get(index) + (exchange == null ? "" : ": " + exchange));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package nz.ac.auckland.morc.load;
+
+import nz.ac.auckland.morc.utility.LatencyHistogram;
+
+/**
+ * The outcome of a load test: how many messages were sent and received by mocks, how many of those were invalid, and
+ * the latencies of the responses from the target endpoint
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class LoadTestResult {
+    private long iterationCount;
+    private long requestCount;
+    private long errorCount;
+    private long mockMessageCount;
+    private long mockErrorCount;
+    private long elapsedTime;
+    private LatencyHistogram latencies;
+
+    public LoadTestResult(long iterationCount, long requestCount, long errorCount, long mockMessageCount,
+                          long mockErrorCount, long elapsedTime, LatencyHistogram latencies) {
+        this.iterationCount = iterationCount;
+        this.requestCount = requestCount;
+        this.errorCount = errorCount;
+        this.mockMessageCount = mockMessageCount;
+        this.mockErrorCount = mockErrorCount;
+        this.elapsedTime = elapsedTime;
+        this.latencies = latencies;
+    }
+
+    /**
+     * @return The number of iterations of the specification that were run
+     */
+    public long getIterationCount() {
+        return iterationCount;
+    }
+
+    /**
+     * @return The number of messages sent to the target endpoints
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return The number of responses that did not satisfy their predicate, or could not be sent
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return The number of messages received by the mock endpoints
+     */
+    public long getMockMessageCount() {
+        return mockMessageCount;
+    }
+
+    /**
+     * @return The number of messages received by the mock endpoints that did not satisfy any of their predicates
+     */
+    public long getMockErrorCount() {
+        return mockErrorCount;
+    }
+
+    /**
+     * @return The time in milliseconds from the first iteration starting until the last one completed
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * @return The number of messages sent to the target endpoints each second
+     */
+    public double getThroughput() {
+        return elapsedTime == 0 ? 0 : requestCount * 1000d / elapsedTime;
+    }
+
+    /**
+     * @return The proportion of responses from the target endpoints that were invalid
+     */
+    public double getErrorRate() {
+        return requestCount == 0 ? 0 : (double) errorCount / requestCount;
+    }
+
+    /**
+     * @return The proportion of messages received by the mock endpoints that were invalid
+     */
+    public double getMockErrorRate() {
+        return mockMessageCount == 0 ? 0 : (double) mockErrorCount / mockMessageCount;
+    }
+
+    /**
+     * @return The latencies in nanoseconds between sending each message and receiving its response
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("iterations: %d, requests: %d, throughput: %.2f/s, error rate: %.2f%%, " +
+                        "mock messages: %d, mock error rate: %.2f%%, latency (%s)", iterationCount, requestCount,
+                getThroughput(), getErrorRate() * 100, mockMessageCount, getMockErrorRate() * 100, latencies);
+    }
+}
@@ -0,0 +1,195 @@
+package nz.ac.auckland.morc.load;
+
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+
+import java.util.function.Consumer;
+
+/**
+ * A load test drives an existing orchestrated test specification at a target rate for a fixed duration or number of
+ * iterations. Each iteration sends every message of every part of the specification in turn, with the specification's
+ * mock definitions standing in for the downstream services. Rather than failing on the first invalid response the
+ * load test records the throughput, error rate and latencies of the run, and only fails if the error rate is higher
+ * than allowed.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class LoadTestSpecification {
+    private String description;
+    private OrchestratedTestSpecification specification;
+    private double rate;
+    private long duration;
+    private long iterations;
+    private int concurrency;
+    private double maximumErrorRate;
+    private Consumer<LoadTestResult> resultHandler;
+
+    /**
+     * @return A description that explains what this load test is doing
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return The specification whose processors, predicates and mock definitions will be used for each iteration
+     */
+    public OrchestratedTestSpecification getSpecification() {
+        return specification;
+    }
+
+    /**
+     * @return The number of iterations that will be started each second, or 0 if iterations are started as soon as
+     * an earlier one completes
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return The time in milliseconds after which no further iterations will be started, or 0 if there is no limit
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return The total number of iterations that will be run, or 0 if there is no limit
+     */
+    public long getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return The maximum number of iterations that will run at the same time
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return The highest proportion (between 0 and 1) of invalid responses or mock messages that is accepted
+     * before the load test fails
+     */
+    public double getMaximumErrorRate() {
+        return maximumErrorRate;
+    }
+
+    /**
+     * @return A handler that will be provided the result of the load test once it completes, or null
+     */
+    public Consumer<LoadTestResult> getResultHandler() {
+        return resultHandler;
+    }
+
+    public static class LoadTestSpecificationBuilder {
+        private String description;
+        private OrchestratedTestSpecification.OrchestratedTestSpecificationBuilderInit<?> specificationBuilder;
+        private double rate = 0;
+        private long duration = 0;
+        private long iterations = 0;
+        private int concurrency = 1;
+        private double maximumErrorRate = 1;
+        private Consumer<LoadTestResult> resultHandler;
+
+        /**
+         * @param description          The description that identifies what the load test is supposed to do
+         * @param specificationBuilder The builder for the specification that will be used for each iteration
+         */
+        public LoadTestSpecificationBuilder(String description,
+                                            OrchestratedTestSpecification.OrchestratedTestSpecificationBuilderInit<?> specificationBuilder) {
+            this.description = description;
+            this.specificationBuilder = specificationBuilder;
+        }
+
+        /**
+         * @return The builder for the specification that will be used for each iteration
+         */
+        public OrchestratedTestSpecification.OrchestratedTestSpecificationBuilderInit<?> getSpecificationBuilder() {
+            return specificationBuilder;
+        }
+
+        /**
+         * @param rate The number of iterations to start each second; by default iterations start as soon as the
+         *             concurrency allows
+         */
+        public LoadTestSpecificationBuilder rate(double rate) {
+            if (rate <= 0)
+                throw new IllegalArgumentException("The rate of a load test must be greater than 0");
+            this.rate = rate;
+            return this;
+        }
+
+        /**
+         * @param duration The time in milliseconds after which no further iterations will be started
+         */
+        public LoadTestSpecificationBuilder duration(long duration) {
+            if (duration <= 0)
+                throw new IllegalArgumentException("The duration of a load test must be greater than 0");
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * @param iterations The total number of iterations to run; if a duration is also provided then the load test
+         *                   will stop at whichever is reached first
+         */
+        public LoadTestSpecificationBuilder iterations(long iterations) {
+            if (iterations <= 0)
+                throw new IllegalArgumentException("The number of iterations of a load test must be greater than 0");
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * @param concurrency The maximum number of iterations that will run at the same time, defaults to 1. Mock
+         *                    responses are provided in the order messages arrive so mocks that need to respond to a
+         *                    particular request should use a matched response processor.
+         */
+        public LoadTestSpecificationBuilder concurrency(int concurrency) {
+            if (concurrency < 1)
+                throw new IllegalArgumentException("The concurrency of a load test must be at least 1");
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * @param maximumErrorRate The highest proportion (between 0 and 1) of invalid responses or mock messages that
+         *                         is accepted before the load test fails, defaults to 1 so that errors are only reported
+         */
+        public LoadTestSpecificationBuilder maximumErrorRate(double maximumErrorRate) {
+            if (maximumErrorRate < 0 || maximumErrorRate > 1)
+                throw new IllegalArgumentException("The maximum error rate of a load test must be between 0 and 1");
+            this.maximumErrorRate = maximumErrorRate;
+            return this;
+        }
+
+        /**
+         * @param resultHandler A handler that will be provided the result of the load test once it completes
+         */
+        public LoadTestSpecificationBuilder resultHandler(Consumer<LoadTestResult> resultHandler) {
+            this.resultHandler = resultHandler;
+            return this;
+        }
+
+        /**
+         * @param specification The specification built by the specification builder
+         */
+        public LoadTestSpecification build(OrchestratedTestSpecification specification) {
+            if (duration == 0 && iterations == 0)
+                throw new IllegalArgumentException("A duration or number of iterations must be provided for the load test "
+                        + description);
+            return new LoadTestSpecification(this, specification);
+        }
+    }
+
+    private LoadTestSpecification(LoadTestSpecificationBuilder builder, OrchestratedTestSpecification specification) {
+        this.description = builder.description;
+        this.specification = specification;
+        this.rate = builder.rate;
+        this.duration = builder.duration;
+        this.iterations = builder.iterations;
+        this.concurrency = builder.concurrency;
+        this.maximumErrorRate = builder.maximumErrorRate;
+        this.resultHandler = builder.resultHandler;
+    }
+}
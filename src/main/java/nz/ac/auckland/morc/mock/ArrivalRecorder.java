@@ -0,0 +1,123 @@
+package nz.ac.auckland.morc.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Records the sequence in which messages arrive at the mock endpoints of a specification part. Each arrival is
+ * appended to a lock-free log on the thread the message arrived on, and only the sequence number, endpoint URI and
+ * time of arrival are kept so that the ordering can be validated without holding on to copies of each exchange.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class ArrivalRecorder {
+
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicReference<Arrival> lastArrival = new AtomicReference<>();
+    private final int expectedCount;
+    private final CountDownLatch expectedArrived;
+
+    /**
+     * @param expectedCount The total number of messages expected to arrive at the mock endpoints
+     */
+    public ArrivalRecorder(int expectedCount) {
+        this.expectedCount = expectedCount;
+        this.expectedArrived = new CountDownLatch(expectedCount > 0 ? 1 : 0);
+    }
+
+    /**
+     * @param endpointUri The resolved URI of the endpoint the message arrived at
+     * @param timestamp   The System.nanoTime() at which the message arrived
+     * @return The arrival that was recorded
+     */
+    public Arrival record(String endpointUri, long timestamp) {
+        Arrival arrival = new Arrival(sequence.getAndIncrement(), endpointUri, timestamp);
+
+        Arrival previous;
+        do {
+            previous = lastArrival.get();
+            arrival.previous = previous;
+        } while (!lastArrival.compareAndSet(previous, arrival));
+
+        if (arrival.getSequence() + 1 == expectedCount) expectedArrived.countDown();
+        return arrival;
+    }
+
+    /**
+     * @return The number of messages that have arrived
+     */
+    public int getCount() {
+        return sequence.get();
+    }
+
+    /**
+     * Waits until the expected number of messages have arrived
+     *
+     * @param deadline The time in milliseconds after which we give up waiting
+     * @return The number of messages that have arrived
+     */
+    public int await(long deadline) throws InterruptedException {
+        expectedArrived.await(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        return getCount();
+    }
+
+    /**
+     * @return The messages that have arrived so far, in the order of their sequence number
+     */
+    public List<Arrival> getArrivals() {
+        List<Arrival> arrivals = new ArrayList<>();
+        for (Arrival arrival = lastArrival.get(); arrival != null; arrival = arrival.previous)
+            arrivals.add(arrival);
+
+        //a message that took its sequence number before another may be appended to the log after it
+        Collections.sort(arrivals, (a, b) -> Integer.compare(a.getSequence(), b.getSequence()));
+        return arrivals;
+    }
+
+    /**
+     * A message arriving at a mock endpoint
+     */
+    public static class Arrival {
+        private final int sequence;
+        private final String endpointUri;
+        private final long timestamp;
+        private Arrival previous;
+
+        Arrival(int sequence, String endpointUri, long timestamp) {
+            this.sequence = sequence;
+            this.endpointUri = endpointUri;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * @return The (0 based) position of the message amongst all arrivals
+         */
+        public int getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return The resolved URI of the endpoint the message arrived at
+         */
+        public String getEndpointUri() {
+            return endpointUri;
+        }
+
+        /**
+         * @return The System.nanoTime() at which the message arrived
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return sequence + ": " + endpointUri;
+        }
+    }
+}
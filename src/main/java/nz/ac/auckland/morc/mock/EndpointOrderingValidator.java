@@ -0,0 +1,93 @@
+package nz.ac.auckland.morc.mock;
+
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Validates the order that messages arrive at mock endpoints, either as they arrive or from the recorded sequence of
+ * arrivals. The endpoint nodes that may next receive a message are indexed by their resolved endpoint URI so each
+ * arrival is checked in constant time, after which the children of the matched node may receive messages. A
+ * description of the expected endpoints is only built if a message arrives out of order.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class EndpointOrderingValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(EndpointOrderingValidator.class);
+
+    private final CamelContext context;
+    private final Map<String, String> resolvedEndpointUris = new HashMap<>();
+    private final Map<String, Deque<OrchestratedTestSpecification.EndpointNode>> pendingNodes = new LinkedHashMap<>();
+    private String violation;
+
+    /**
+     * @param context       The context used to resolve the endpoint of each node
+     * @param endpointNodes The nodes that may receive the first messages, with the nodes that may receive messages
+     *                      after them as children
+     */
+    public EndpointOrderingValidator(CamelContext context,
+                                     Collection<OrchestratedTestSpecification.EndpointNode> endpointNodes) {
+        this.context = context;
+        for (OrchestratedTestSpecification.EndpointNode endpointNode : endpointNodes)
+            addPending(endpointNode);
+    }
+
+    /**
+     * @param endpoint The endpoint that a message has arrived at
+     * @return true if the message was expected at this point, false if this or an earlier message was unexpected
+     */
+    public boolean arrived(Endpoint endpoint) {
+        return arrived(endpoint.getEndpointUri());
+    }
+
+    /**
+     * @param endpointUri The resolved URI of the endpoint that a message has arrived at
+     * @return true if the message was expected at this point, false if this or an earlier message was unexpected
+     */
+    public synchronized boolean arrived(String endpointUri) {
+        if (violation != null) return false;
+
+        Deque<OrchestratedTestSpecification.EndpointNode> nodes = pendingNodes.get(endpointUri);
+        OrchestratedTestSpecification.EndpointNode node = (nodes == null ? null : nodes.poll());
+
+        if (node == null) {
+            violation = "A message to the endpoint " + endpointUri + " was unexpected - one of " +
+                    describePending() + " was expected";
+            logger.debug(violation);
+            return false;
+        }
+
+        logger.debug("Message arrived in the correct order to endpoint {}", node.getEndpointUri());
+        for (OrchestratedTestSpecification.EndpointNode childNode : node.getChildrenNodes())
+            addPending(childNode);
+
+        return true;
+    }
+
+    /**
+     * @return A description of the first message that arrived out of order, or null if all messages have been in order
+     */
+    public synchronized String getViolation() {
+        return violation;
+    }
+
+    private void addPending(OrchestratedTestSpecification.EndpointNode endpointNode) {
+        String endpointUri = resolvedEndpointUris.computeIfAbsent(endpointNode.getEndpointUri(),
+                uri -> context.getEndpoint(uri).getEndpointUri());
+        pendingNodes.computeIfAbsent(endpointUri, uri -> new ArrayDeque<>()).add(endpointNode);
+    }
+
+    private String describePending() {
+        StringJoiner pending = new StringJoiner(",");
+        for (Deque<OrchestratedTestSpecification.EndpointNode> nodes : pendingNodes.values()) {
+            for (OrchestratedTestSpecification.EndpointNode node : nodes)
+                pending.add(node.getEndpointUri());
+        }
+        return pending.toString();
+    }
+}
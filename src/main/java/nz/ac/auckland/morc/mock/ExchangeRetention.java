@@ -0,0 +1,96 @@
+package nz.ac.auckland.morc.mock;
+
+import nz.ac.auckland.morc.utility.ParsedBodyCache;
+import org.apache.camel.Exchange;
+import org.apache.camel.StreamCache;
+import org.apache.camel.util.ExchangeHelper;
+import org.apache.camel.util.MessageHelper;
+
+/**
+ * Decides which of the messages arriving at a recording mock are copied and kept until the end of the specification
+ * part, where they are used to describe failures; messages that aren't kept are still counted and validated
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public interface ExchangeRetention {
+
+    /**
+     * Every message is kept, as a Camel mock endpoint would
+     */
+    public static final ExchangeRetention ALL = (index, satisfied) -> true;
+
+    /**
+     * No message is kept; failures are reported without the message that caused them
+     */
+    public static final ExchangeRetention NONE = (index, satisfied) -> false;
+
+    /**
+     * Only the messages that don't satisfy their predicate are kept
+     */
+    public static final ExchangeRetention FAILURES = (index, satisfied) -> !satisfied;
+
+    /**
+     * @param count The number of messages to keep
+     * @return A retention that keeps the first messages to arrive, along with any that don't satisfy their predicate
+     */
+    public static ExchangeRetention firstN(int count) {
+        return new FirstN(count);
+    }
+
+    /**
+     * @param exchange A message that has arrived
+     * @return A copy of the message to keep; a stream cached body is read into memory as its spool file is removed
+     * once the message has been handled, and any parsed representations of the body are left behind
+     */
+    public static Exchange copy(Exchange exchange) {
+        Exchange copy = ExchangeHelper.createCopy(exchange, true);
+        //the parsed body (e.g. a DOM) can be many times the size of the body itself
+        copy.removeProperty(ParsedBodyCache.PROPERTY);
+        if (copy.getIn().getBody() instanceof StreamCache) {
+            MessageHelper.resetStreamCache(copy.getIn());
+            copy.getIn().setBody(copy.getIn().getBody(byte[].class));
+            MessageHelper.resetStreamCache(exchange.getIn());
+        }
+        return copy;
+    }
+
+    /**
+     * @param index     The (0 based) index of the message amongst those arriving at the mock
+     * @param satisfied Whether the message satisfied its predicate (or true if there was no predicate to check)
+     * @return true if a copy of the message should be kept
+     */
+    public boolean retain(int index, boolean satisfied);
+
+    /**
+     * Keeps the first messages to arrive along with any that don't satisfy their predicate; retentions for the same
+     * number of messages are equal
+     */
+    class FirstN implements ExchangeRetention {
+        private final int count;
+
+        public FirstN(int count) {
+            if (count < 0) throw new IllegalArgumentException("The number of messages to retain must be at least 0");
+            this.count = count;
+        }
+
+        @Override
+        public boolean retain(int index, boolean satisfied) {
+            return index < count || !satisfied;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof FirstN && ((FirstN) other).count == count;
+        }
+
+        @Override
+        public int hashCode() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return "FirstN:" + count;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package nz.ac.auckland.morc.mock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tracks the messages arriving at the mock endpoint for a mock definition during a specification part so that
+ * waiting can finish as soon as the expectation is satisfied, or can no longer be satisfied, rather than always
+ * waiting for the full result wait time. A quiescence period (the reassertion period of the mock definition) is
+ * only applied where we need to show that no further messages arrive - mocks expecting no messages, or those with an
+ * explicit reassertion period. When an idle check is provided (see MorcTest.isIdleQuiescence, which is off by
+ * default) the quiescence period also ends once the context has stayed idle (no exchanges in flight or queued) for a
+ * short settling time; messages pending outside the inflight repository and seda queues (e.g. in an aggregator, from
+ * a timer or from an external broker) can't be seen this way, so the full period is waited for without one. Arrivals
+ * are counted without locking so that a mock receiving many messages at the same time doesn't become a point of
+ * contention.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class MockCompletion {
+
+    private static final Logger logger = LoggerFactory.getLogger(MockCompletion.class);
+
+    //how often the idle check is made, and so how long the context must stay idle for quiescence to end early
+    private static final long IDLE_CHECK_INTERVAL = 50;
+
+    private final MockDefinition mockDefinition;
+    private final AtomicInteger receivedCount = new AtomicInteger();
+    //each of these is released early if the wait is aborted
+    private final CountDownLatch expectedArrived;
+    private final CountDownLatch violated = new CountDownLatch(1);
+    private volatile boolean aborted = false;
+    private volatile Runnable violationListener;
+
+    /**
+     * @param mockDefinition The mock definition whose expected message count, result wait time and reassertion period
+     *                       will be used to decide when the mock has completed
+     */
+    public MockCompletion(MockDefinition mockDefinition) {
+        this.mockDefinition = mockDefinition;
+        this.expectedArrived = new CountDownLatch(mockDefinition.getExpectedMessageCount() > 0 ? 1 : 0);
+    }
+
+    /**
+     * Records the arrival of a message at the mock endpoint
+     */
+    public void arrived() {
+        int count = receivedCount.incrementAndGet();
+        if (count == mockDefinition.getExpectedMessageCount()) expectedArrived.countDown();
+
+        //we only need to report the first message too many
+        if (count == mockDefinition.getExpectedMessageCount() + 1) {
+            violated.countDown();
+            Runnable listener = violationListener;
+            if (listener != null) listener.run();
+        }
+    }
+
+    /**
+     * @param violationListener Called (on the thread the message arrived on) as soon as more messages have arrived
+     *                          than the mock definition expects
+     */
+    public void setViolationListener(Runnable violationListener) {
+        this.violationListener = violationListener;
+    }
+
+    /**
+     * Stops any current or future wait for this mock to complete, for when the outcome of the part is already known
+     */
+    public void abort() {
+        aborted = true;
+        expectedArrived.countDown();
+        violated.countDown();
+    }
+
+    /**
+     * @return The number of messages that have arrived at the mock endpoint
+     */
+    public int getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    /**
+     * @return true if more messages have arrived than the mock definition expects
+     */
+    public boolean isViolated() {
+        return receivedCount.get() > mockDefinition.getExpectedMessageCount();
+    }
+
+    /**
+     * Waits until the expected messages have arrived and any required quiescence period has passed, returning early
+     * if the expectation is violated, the result wait time has passed or the wait is aborted
+     *
+     * @param startTime The time in milliseconds from which all mocks in the part started waiting for messages; this is
+     *                  when the result wait time and the quiescence of mocks expecting no messages are measured from
+     */
+    public void await(long startTime) throws InterruptedException {
+        await(startTime, null);
+    }
+
+    /**
+     * Waits until the expected messages have arrived and any required quiescence period has passed, returning early
+     * if the expectation is violated, the result wait time has passed, the wait is aborted or (during the quiescence
+     * period) the idle check has passed on consecutive checks
+     *
+     * @param startTime The time in milliseconds from which all mocks in the part started waiting for messages; this is
+     *                  when the result wait time and the quiescence of mocks expecting no messages are measured from
+     * @param idle      Returns true when no further messages can arrive at the mock, or null to always wait for the
+     *                  full quiescence period
+     */
+    public void await(long startTime, BooleanSupplier idle) throws InterruptedException {
+        final int expectedMessageCount = mockDefinition.getExpectedMessageCount();
+
+        if (expectedMessageCount > 0) {
+            awaitUntil(expectedArrived, startTime + mockDefinition.getResultWaitTime());
+            if (aborted) return;
+            if (getReceivedCount() < expectedMessageCount) {
+                logger.debug("Mock for endpoint {} received {} of {} messages before the result wait time passed",
+                        new Object[]{mockDefinition.getEndpointUri(), getReceivedCount(), expectedMessageCount});
+                return;
+            }
+        }
+
+        long quiescencePeriod = mockDefinition.getReassertionPeriod();
+        if (quiescencePeriod > 0) {
+            long quiescenceStartTime = (expectedMessageCount == 0 ? startTime : System.currentTimeMillis());
+            logger.trace("Waiting up to {}ms to ensure no further messages arrive at endpoint {}", quiescencePeriod,
+                    mockDefinition.getEndpointUri());
+            awaitQuiescence(quiescenceStartTime + quiescencePeriod, idle);
+        }
+
+        if (isViolated())
+            logger.debug("Mock for endpoint {} received {} messages when {} were expected", new Object[]{
+                    mockDefinition.getEndpointUri(), getReceivedCount(), expectedMessageCount});
+    }
+
+    private void awaitQuiescence(long deadline, BooleanSupplier idle) throws InterruptedException {
+        if (idle == null) {
+            awaitUntil(violated, deadline);
+            return;
+        }
+
+        //a single idle check may fall between one exchange completing and the next starting
+        boolean wasIdle = false;
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            boolean isIdle = idle.getAsBoolean();
+            if (wasIdle && isIdle) {
+                logger.trace("Ending the quiescence period for endpoint {} early as the context is idle",
+                        mockDefinition.getEndpointUri());
+                return;
+            }
+            wasIdle = isIdle;
+            if (violated.await(Math.min(remaining, IDLE_CHECK_INTERVAL), TimeUnit.MILLISECONDS)) return;
+        }
+    }
+
+    private static void awaitUntil(CountDownLatch latch, long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            if (latch.await(remaining, TimeUnit.MILLISECONDS)) return;
+        }
+    }
+}
@@ -46,6 +46,7 @@ public class MockDefinition {
     private Collection<EndpointOverride> endpointOverrides = new ArrayList<>();
     private long reassertionPeriod;
     private long minimalResultWaitTime;
+    private ExchangeRetention retention;
 
     public enum OrderingType {
         TOTAL,
@@ -155,6 +156,13 @@ public class MockDefinition {
         return reassertionPeriod;
     }
 
+    /**
+     * @return Decides which of the messages arriving at the endpoint are kept for describing failures
+     */
+    public ExchangeRetention getRetention() {
+        return retention;
+    }
+
     /**
      * A concrete implementation of MockDefinitionBuilderInit
      */
@@ -176,6 +184,7 @@ public class MockDefinition {
         private Class<? extends SelectorProcessor> lenientProcessorClass = SelectorProcessor.class;
         private SelectorProcessor lenientProcessor;
         private long reassertionPeriod = 0;
+        private ExchangeRetention retention = ExchangeRetention.ALL;
 
         //these will be populated during the build
         private List<Predicate> predicates;
@@ -263,6 +272,20 @@ public class MockDefinition {
             return self();
         }
 
+        /**
+         * @param retention Decides which of the messages arriving at the endpoint are kept until the end of the
+         *                  specification part for describing failures; each message is validated as it arrives so
+         *                  keeping fewer (ExchangeRetention.NONE, FAILURES or firstN) saves memory with large or many
+         *                  messages. The default keeps all messages
+         */
+        public Builder retain(ExchangeRetention retention) {
+            if (retention == null)
+                throw new IllegalArgumentException("The retention for the mock definition on endpoint " + getEndpointUri() +
+                        " must be provided");
+            this.retention = retention;
+            return self();
+        }
+
         public MockDefinition build(MockDefinition previousDefinitionPart) {
 
             if (expectedMessageCount < 0)
@@ -333,6 +356,10 @@ public class MockDefinition {
                         logger.warn("The reassertion period for a subsequent mock definition part on endpoint {} has a different " +
                                 "time - the first will be used and will apply to the endpoint as a whole", getEndpointUri());
 
+                    if (!previousDefinitionPart.retention.equals(retention))
+                        logger.warn("The retention for a subsequent mock definition part on endpoint {} is different " +
+                                "- the first will be used and will apply to the endpoint as a whole", getEndpointUri());
+
                     predicates.addAll(0, previousDefinitionPart.getPredicates());
                     processors.addAll(0, previousDefinitionPart.getProcessors());
 
@@ -346,6 +373,7 @@ public class MockDefinition {
                 this.orderingType = previousDefinitionPart.orderingType;
                 this.isEndpointOrdered = previousDefinitionPart.isEndpointOrdered;
                 reassertionPeriod(previousDefinitionPart.reassertionPeriod);
+                retain(previousDefinitionPart.retention);
                 minimalResultWaitTime(previousDefinitionPart.minimalResultWaitTime);
                 messageResultWaitTime(previousDefinitionPart.getMessageResultWaitTime());
                 this.expectedMessageCount += previousDefinitionPart.getExpectedMessageCount();
@@ -384,5 +412,6 @@ public class MockDefinition {
         this.messageResultWaitTime = builder.getMessageResultWaitTime();
         this.reassertionPeriod = builder.reassertionPeriod;
         this.minimalResultWaitTime = builder.getMinimalResultWaitTime();
+        this.retention = builder.retention;
     }
 }
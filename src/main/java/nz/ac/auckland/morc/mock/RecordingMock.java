@@ -0,0 +1,209 @@
+package nz.ac.auckland.morc.mock;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Predicate;
+import org.apache.camel.Processor;
+import org.apache.camel.util.MessageHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Receives the messages arriving at a mock endpoint during a specification part in place of a Camel mock endpoint,
+ * which synchronizes on every message and keeps a copy of each of them. Each message takes an index from a counter,
+ * is validated against the predicate for that index (or matched against all predicates if the mock isn't endpoint
+ * ordered), and is then handled by the processor for that index, all without locking. Only the messages chosen by
+ * the exchange retention are kept, to describe failures.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class RecordingMock implements Processor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordingMock.class);
+
+    private final MockDefinition mockDefinition;
+    private final Processor[] processors;
+    private final Predicate[] predicates;
+    private final UnorderedPredicateMatcher predicateMatcher;
+    private final MockCompletion mockCompletion;
+    private final ExchangeRetention retention;
+
+    private final AtomicInteger arrivalCount = new AtomicInteger();
+    //the index of the first message that didn't satisfy its predicate, or -1 if there has been none
+    private final AtomicInteger failedIndex = new AtomicInteger(-1);
+    private final ConcurrentSkipListMap<Integer, Exchange> retainedExchanges = new ConcurrentSkipListMap<>();
+    private volatile Consumer<String> violationListener;
+
+    /**
+     * @param mockDefinition The mock definition providing the processors, predicates, waiting behaviour and which of
+     *                       the arriving messages are kept
+     */
+    public RecordingMock(MockDefinition mockDefinition) {
+        this(mockDefinition, mockDefinition.getRetention());
+    }
+
+    /**
+     * @param mockDefinition The mock definition providing the processors, predicates and waiting behaviour
+     * @param retention      Decides which of the arriving messages are kept
+     */
+    public RecordingMock(MockDefinition mockDefinition, ExchangeRetention retention) {
+        this.mockDefinition = mockDefinition;
+        this.processors = mockDefinition.getProcessors().toArray(new Processor[mockDefinition.getProcessors().size()]);
+        this.predicates = mockDefinition.getPredicates().toArray(new Predicate[mockDefinition.getPredicates().size()]);
+        this.predicateMatcher = mockDefinition.isEndpointOrdered() ? null :
+                new UnorderedPredicateMatcher(mockDefinition.getPredicates());
+        this.mockCompletion = new MockCompletion(mockDefinition);
+        this.retention = retention;
+    }
+
+    /**
+     * @param violationListener Called (on the thread the message arrived on) with a description of the violation as
+     *                          soon as more messages have arrived than expected, or a message to an endpoint ordered
+     *                          mock doesn't satisfy its predicate
+     */
+    public void setViolationListener(final Consumer<String> violationListener) {
+        this.violationListener = violationListener;
+        mockCompletion.setViolationListener(() -> violationListener.accept("received more than the " +
+                mockDefinition.getExpectedMessageCount() + " expected messages"));
+    }
+
+    /**
+     * @return The mock definition the messages are recorded for
+     */
+    public MockDefinition getMockDefinition() {
+        return mockDefinition;
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        int index = arrivalCount.getAndIncrement();
+        try {
+            //the message is validated as it arrived, before any processor provides a response
+            boolean satisfied = true;
+            BitSet matchedPredicates = null;
+            //lazy matching needs a copy of every message, so when fewer are kept every predicate is evaluated now
+            if (predicateMatcher != null && retention != ExchangeRetention.ALL) {
+                matchedPredicates = predicateMatcher.evaluateAll(exchange);
+                satisfied = !matchedPredicates.isEmpty();
+            } else if (predicateMatcher == null && index < predicates.length)
+                satisfied = satisfies(index, exchange);
+
+            Exchange copy = null;
+            if (retention.retain(index, satisfied)) {
+                copy = ExchangeRetention.copy(exchange);
+                retainedExchanges.put(index, copy);
+            }
+
+            if (matchedPredicates != null) predicateMatcher.arrived(copy, matchedPredicates);
+            //the copy kept by retaining every message is the one matched
+            else if (predicateMatcher != null) predicateMatcher.arrived(copy);
+
+            if (index < processors.length) {
+                MessageHelper.resetStreamCache(exchange.getIn());
+                processors[index].process(exchange);
+            }
+        } finally {
+            mockCompletion.arrived();
+        }
+    }
+
+    private boolean satisfies(int index, Exchange exchange) {
+        Predicate predicate = predicates[index];
+        boolean satisfied;
+        try {
+            MessageHelper.resetStreamCache(exchange.getIn());
+            satisfied = predicate.matches(exchange);
+        } catch (RuntimeException e) {
+            logger.warn("Predicate " + predicate + " failed evaluating message " + index, e);
+            satisfied = false;
+        }
+
+        if (!satisfied) {
+            logger.debug("Message {} to endpoint {} did not satisfy the predicate {}", new Object[]{index,
+                    mockDefinition.getEndpointUri(), predicate});
+            //only the first failure is reported
+            if (failedIndex.compareAndSet(-1, index)) {
+                Consumer<String> listener = violationListener;
+                if (listener != null) listener.accept("failed validation of message " + (index + 1) + " - the " +
+                        "predicate " + predicate + " was not satisfied");
+            }
+        }
+
+        return satisfied;
+    }
+
+    /**
+     * Stops any current or future wait for this mock to complete, for when the outcome of the part is already known
+     */
+    public void abort() {
+        mockCompletion.abort();
+    }
+
+    /**
+     * Waits until the expected messages have arrived and any required quiescence period has passed
+     *
+     * @param startTime The time in milliseconds from which all mocks in the part started waiting for messages
+     */
+    public void await(long startTime) throws InterruptedException {
+        mockCompletion.await(startTime);
+    }
+
+    /**
+     * Waits until the expected messages have arrived and any required quiescence period has passed, ending the
+     * quiescence period early once the idle check passes
+     *
+     * @param startTime The time in milliseconds from which all mocks in the part started waiting for messages
+     * @param idle      Returns true when no further messages can arrive at the mock
+     */
+    public void await(long startTime, BooleanSupplier idle) throws InterruptedException {
+        mockCompletion.await(startTime, idle);
+    }
+
+    /**
+     * @return The number of messages that have arrived
+     */
+    public int getReceivedCount() {
+        return arrivalCount.get();
+    }
+
+    /**
+     * @return The copies of the messages chosen by the exchange retention, in the order of their index
+     */
+    public List<Exchange> getRetainedExchanges() {
+        return new ArrayList<>(retainedExchanges.values());
+    }
+
+    /**
+     * @throws AssertionError if the expected number of messages did not arrive or a message did not satisfy a
+     *                        predicate
+     */
+    public void assertIsSatisfied() {
+        int receivedCount = getReceivedCount();
+        if (receivedCount != mockDefinition.getExpectedMessageCount())
+            throw new AssertionError("Received message count. Expected: <" + mockDefinition.getExpectedMessageCount() +
+                    "> but was: <" + receivedCount + ">");
+
+        int index = failedIndex.get();
+        if (index >= 0) {
+            Exchange exchange = retainedExchanges.get(index);
+            throw new AssertionError("Message " + index + " did not satisfy the predicate " + predicates[index] +
+                    (exchange == null ? "" : ": " + exchange));
+        }
+
+        if (predicateMatcher != null) {
+            int unmatchedIndex = predicateMatcher.getUnmatchedIndex();
+            if (unmatchedIndex >= 0) {
+                Exchange exchange = predicateMatcher.getUnmatchedExchange();
+                throw new AssertionError("Message " + (exchange == null ? unmatchedIndex : exchange) +
+                        " was received but not matched against a predicate on endpoint " + mockDefinition.getEndpointUri());
+            }
+        }
+    }
+}
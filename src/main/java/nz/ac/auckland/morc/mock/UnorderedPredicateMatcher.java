@@ -0,0 +1,181 @@
+package nz.ac.auckland.morc.mock;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Predicate;
+import org.apache.camel.util.MessageHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Matches the messages arriving at a mock endpoint that doesn't care about the order of its messages against its
+ * predicates. As each message arrives the largest possible (maximum bipartite) matching between messages and
+ * predicates is extended, so a message that satisfies several predicates won't take the only predicate satisfied
+ * by a later message. Each message/predicate pair is evaluated at most once, and only when it's needed - unless every
+ * predicate is evaluated as the message arrives, in which case a copy of the message doesn't need to be kept. A free
+ * predicate that the message satisfies is looked for before taking the lock on the matching, so concurrent arrivals
+ * don't wait on each other's predicates; only when earlier matches have to be rearranged (or another message took
+ * the same predicate first) are predicates evaluated while holding the lock.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class UnorderedPredicateMatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnorderedPredicateMatcher.class);
+
+    private final List<Predicate> predicates;
+    private final List<Exchange> exchanges = new ArrayList<>();
+    private final List<BitSet> evaluated = new ArrayList<>();
+    private final List<BitSet> matched = new ArrayList<>();
+    //the index of the exchange matched to each predicate, or -1 if the predicate is free
+    private final int[] predicateMatches;
+    private final List<Integer> exchangeMatches = new ArrayList<>();
+
+    /**
+     * @param predicates The predicates that each arriving message needs to be matched to one of
+     */
+    public UnorderedPredicateMatcher(List<Predicate> predicates) {
+        this.predicates = new ArrayList<>(predicates);
+        this.predicateMatches = new int[predicates.size()];
+        Arrays.fill(predicateMatches, -1);
+    }
+
+    /**
+     * @param exchange A copy of a message as it arrived at the mock endpoint, which is kept so predicates can be
+     *                 evaluated later; it must not be changed once provided
+     */
+    public void arrived(Exchange exchange) {
+        BitSet exchangeEvaluated = new BitSet(predicates.size());
+        BitSet exchangeMatched = new BitSet(predicates.size());
+
+        //a matched predicate is never freed, so the others only need evaluating if earlier matches are rearranged
+        BitSet free = getFreePredicates();
+        for (int i = free.nextSetBit(0); i >= 0; i = free.nextSetBit(i + 1)) {
+            exchangeEvaluated.set(i);
+            if (evaluate(i, exchange)) {
+                exchangeMatched.set(i);
+                break;
+            }
+        }
+
+        synchronized (this) {
+            add(exchange, exchangeEvaluated, exchangeMatched);
+        }
+    }
+
+    private synchronized BitSet getFreePredicates() {
+        BitSet free = new BitSet(predicates.size());
+        for (int i = 0; i < predicateMatches.length; i++) {
+            if (predicateMatches[i] == -1) free.set(i);
+        }
+        return free;
+    }
+
+    /**
+     * @param exchange A message that has arrived at the mock endpoint
+     * @return The predicates that the message satisfies, evaluated now so that no copy of the message needs to be
+     * kept for matching
+     */
+    public BitSet evaluateAll(Exchange exchange) {
+        BitSet exchangeMatched = new BitSet(predicates.size());
+        for (int i = 0; i < predicates.size(); i++)
+            exchangeMatched.set(i, evaluate(i, exchange));
+        return exchangeMatched;
+    }
+
+    /**
+     * @param exchange          A copy of a message that has arrived at the mock endpoint to report if it can't be
+     *                          matched, or null if no copy has been kept
+     * @param matchedPredicates The predicates the message satisfies, as provided by evaluateAll
+     */
+    public synchronized void arrived(Exchange exchange, BitSet matchedPredicates) {
+        BitSet exchangeEvaluated = new BitSet(predicates.size());
+        exchangeEvaluated.set(0, predicates.size());
+        add(exchange, exchangeEvaluated, matchedPredicates);
+    }
+
+    private void add(Exchange exchange, BitSet exchangeEvaluated, BitSet exchangeMatched) {
+        int exchangeIndex = exchanges.size();
+        exchanges.add(exchange);
+        evaluated.add(exchangeEvaluated);
+        matched.add(exchangeMatched);
+        exchangeMatches.add(-1);
+
+        //a new message can only increase the matching through an augmenting path starting at itself
+        if (!augment(exchangeIndex, new BitSet(predicates.size())))
+            logger.debug("Message {} could not be matched to a predicate", exchangeIndex);
+    }
+
+    /**
+     * @return The first message (in order of arrival) that could not be matched to a predicate, or null if every
+     * message has been matched (or no copy was kept of the first message that couldn't be matched)
+     */
+    public synchronized Exchange getUnmatchedExchange() {
+        int index = getUnmatchedIndex();
+        return index == -1 ? null : exchanges.get(index);
+    }
+
+    /**
+     * @return The (0 based) index of the first message that could not be matched to a predicate, or -1 if every
+     * message has been matched
+     */
+    public synchronized int getUnmatchedIndex() {
+        for (int i = 0; i < exchanges.size(); i++) {
+            if (exchangeMatches.get(i) == -1) return i;
+        }
+        return -1;
+    }
+
+    private boolean augment(int exchangeIndex, BitSet visited) {
+        //prefer free predicates so that most messages are matched without rearranging earlier ones
+        for (int i = 0; i < predicates.size(); i++) {
+            if (predicateMatches[i] == -1 && !visited.get(i) && matches(exchangeIndex, i)) {
+                assign(exchangeIndex, i);
+                return true;
+            }
+        }
+
+        for (int i = 0; i < predicates.size(); i++) {
+            if (visited.get(i) || !matches(exchangeIndex, i)) continue;
+            visited.set(i);
+
+            if (predicateMatches[i] == -1 || augment(predicateMatches[i], visited)) {
+                assign(exchangeIndex, i);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void assign(int exchangeIndex, int predicateIndex) {
+        predicateMatches[predicateIndex] = exchangeIndex;
+        exchangeMatches.set(exchangeIndex, predicateIndex);
+    }
+
+    private boolean matches(int exchangeIndex, int predicateIndex) {
+        BitSet exchangeEvaluated = evaluated.get(exchangeIndex);
+        BitSet exchangeMatched = matched.get(exchangeIndex);
+
+        if (!exchangeEvaluated.get(predicateIndex)) {
+            exchangeEvaluated.set(predicateIndex);
+            exchangeMatched.set(predicateIndex, evaluate(predicateIndex, exchanges.get(exchangeIndex)));
+        }
+
+        return exchangeMatched.get(predicateIndex);
+    }
+
+    private boolean evaluate(int predicateIndex, Exchange exchange) {
+        try {
+            MessageHelper.resetStreamCache(exchange.getIn());
+            return predicates.get(predicateIndex).matches(exchange);
+        } catch (RuntimeException e) {
+            logger.warn("Predicate " + predicates.get(predicateIndex) + " failed evaluating a message", e);
+            return false;
+        }
+    }
+}
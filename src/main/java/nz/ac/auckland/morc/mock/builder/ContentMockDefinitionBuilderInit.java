@@ -36,6 +36,14 @@ public class ContentMockDefinitionBuilderInit<Builder extends ContentMockDefinit
         return addPredicates(validators);
     }
 
+    /**
+     * @param validators Validators that will each check a separate message (in order), such as the resources
+     *                   created from a data source
+     */
+    public Builder expectations(Iterable<? extends Predicate> validators) {
+        return addPredicateSeries(validators);
+    }
+
     /**
      * Expect a repeat of the same expectation multiple times
      *
@@ -23,6 +23,14 @@ public class SyncMockDefinitionBuilderInit<Builder extends SyncMockDefinitionBui
         return addProcessors(processors);
     }
 
+    /**
+     * @param processors Processors that will each populate a separate response (in order), such as the resources
+     *                   created from a data source
+     */
+    public Builder responses(Iterable<? extends Processor> processors) {
+        return addProcessorSeries(processors);
+    }
+
     /**
      * Replay the same request for the specified number of times
      *
@@ -0,0 +1,38 @@
+package nz.ac.auckland.morc.predicate;
+
+import nz.ac.auckland.morc.utility.ParsedBodyCache;
+import org.apache.camel.Exchange;
+import org.apache.camel.TypeConversionException;
+import org.apache.camel.builder.xml.XPathBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+/**
+ * An XPath predicate that evaluates against the Document parsed from the message body by any previous predicate,
+ * rather than parsing the body again for each expression
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class CachedBodyXPathBuilder extends XPathBuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedBodyXPathBuilder.class);
+
+    public CachedBodyXPathBuilder(String text) {
+        super(text);
+    }
+
+    @Override
+    protected Object getDocument(Exchange exchange, Object body) {
+        //only the message body is cached, not a header the expression may be evaluated against
+        if (body != null && body == exchange.getIn().getBody()) {
+            try {
+                Document document = ParsedBodyCache.getBody(exchange, Document.class);
+                if (document != null) return document;
+            } catch (TypeConversionException e) {
+                logger.debug("Unable to parse the message body as a Document, evaluating the body as is", e);
+            }
+        }
+        return super.getDocument(exchange, body);
+    }
+}
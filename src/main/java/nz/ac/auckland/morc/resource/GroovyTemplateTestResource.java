@@ -9,10 +9,16 @@ import org.apache.camel.Processor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * A test resource that has delayed evaluation of a groovy script with appropriate variables
+ * A test resource that has delayed evaluation of a groovy script with appropriate variables. Compiling a template
+ * creates a new class, so compiled templates are shared between all resources with the same engine and template
+ * text (e.g. every row of a data source). The template is rendered on every use unless the resource is memoized.
  *
  * @author David MacDonald - d.macdonald@auckland.ac.nz
  */
@@ -20,9 +26,13 @@ public class GroovyTemplateTestResource implements Predicate, Processor, TestRes
 
     private static final Logger logger = LoggerFactory.getLogger(GroovyTemplateTestResource.class);
 
+    private static final Map<TemplateEngine, Map<String, Template>> compiledTemplates = new WeakHashMap<>();
+
     private TemplateEngine templateEngine;
     private Map<String, String> variables;
     private TestResource<String> template;
+    private volatile boolean memoized;
+    private volatile Rendering rendering;
 
     public GroovyTemplateTestResource(TemplateEngine templateEngine, TestResource<String> template, Map<String, String> variables) {
         this.templateEngine = templateEngine;
@@ -47,8 +57,42 @@ public class GroovyTemplateTestResource implements Predicate, Processor, TestRes
     }
 
     public String getValue() throws Exception {
-        Template groovyTemplate = templateEngine.createTemplate(template.getValue());
-        return groovyTemplate.make(variables).toString();
+        String templateText = template.getValue();
+
+        if (!memoized) return getTemplate(templateText).make(variables).toString();
+
+        Rendering previous = rendering;
+        if (previous != null && previous.templateText.equals(templateText) &&
+                Objects.equals(previous.variables, variables))
+            return previous.value;
+
+        String value = getTemplate(templateText).make(variables).toString();
+        rendering = new Rendering(templateText, variables == null ? null : new HashMap<>(variables), value);
+        return value;
+    }
+
+    /**
+     * @param memoized true if the rendered value should be reused until the template text or variables change, for
+     *                 templates whose output depends only on the variables (rather than e.g. the current time)
+     */
+    public void setMemoized(boolean memoized) {
+        this.memoized = memoized;
+    }
+
+    private Template getTemplate(String templateText) throws Exception {
+        Map<String, Template> engineTemplates;
+        synchronized (compiledTemplates) {
+            engineTemplates = compiledTemplates.computeIfAbsent(templateEngine, engine -> new ConcurrentHashMap<>());
+        }
+
+        Template groovyTemplate = engineTemplates.get(templateText);
+        if (groovyTemplate == null) {
+            logger.trace("Compiling Groovy template {}", templateText);
+            groovyTemplate = templateEngine.createTemplate(templateText);
+            Template existing = engineTemplates.putIfAbsent(templateText, groovyTemplate);
+            if (existing != null) groovyTemplate = existing;
+        }
+        return groovyTemplate;
     }
 
     @Override
@@ -66,4 +110,16 @@ public class GroovyTemplateTestResource implements Predicate, Processor, TestRes
     public void process(Exchange exchange) throws Exception {
         new PlainTextTestResource(getValue()).process(exchange);
     }
+
+    private static class Rendering {
+        private final String templateText;
+        private final Map<String, String> variables;
+        private final String value;
+
+        Rendering(String templateText, Map<String, String> variables, String value) {
+            this.templateText = templateText;
+            this.variables = variables;
+            this.value = value;
+        }
+    }
 }
@@ -1,9 +1,14 @@
 package nz.ac.auckland.morc.resource;
 
+import nz.ac.auckland.morc.utility.ParsedBodyCache;
+import nz.ac.auckland.morc.utility.StreamingJsonComparator;
 import org.apache.camel.Exchange;
+import org.apache.camel.StreamCache;
 import org.apache.camel.TypeConversionException;
+import org.apache.camel.util.MessageHelper;
 import org.apache.cxf.helpers.IOUtils;
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.JsonProcessingException;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
@@ -23,6 +28,13 @@ import java.net.URL;
 public class JsonTestResource extends StaticTestResource<String> {
 
     private static final Logger logger = LoggerFactory.getLogger(JsonTestResource.class);
+    //an ObjectMapper is thread safe once configured, and is expensive to create
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final StreamingJsonComparator comparator = new StreamingJsonComparator();
+    private JsonNode expectedJson;
+    //written after expectedJson so that reading this first publishes the tree
+    private volatile boolean expectedJsonParsed;
 
     public JsonTestResource(String value) {
         super(value);
@@ -41,26 +53,33 @@ public class JsonTestResource extends StaticTestResource<String> {
     }
 
     public String getValue() throws Exception {
-        if (!validJson())
+        if (getExpectedJson() == null)
             throw new RuntimeException("Invalid JSON: " + super.getValue());
 
         return super.getValue();
     }
 
-    private boolean validJson() throws Exception {
-        String input = super.getValue();
-
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.readTree(input);
-        } catch (JsonProcessingException | EOFException e) {
-            logger.warn("Invalid JSON: {}", input);
-            return false;
+    /**
+     * @return The expected JSON as a tree, parsed once and then shared by every comparison, or null if the expected
+     * value isn't valid JSON
+     */
+    private JsonNode getExpectedJson() throws Exception {
+        if (expectedJsonParsed) return expectedJson;
+
+        synchronized (this) {
+            if (!expectedJsonParsed) {
+                String input = super.getValue();
+                try {
+                    expectedJson = mapper.readTree(input);
+                } catch (JsonProcessingException | EOFException e) {
+                    logger.warn("Invalid JSON: {}", input);
+                }
+                expectedJsonParsed = true;
+            }
+            return expectedJson;
         }
-        return true;
     }
 
-
     /**
      * @param stream an input stream we can read the file from (this will close it for you)
      */
@@ -70,12 +89,31 @@ public class JsonTestResource extends StaticTestResource<String> {
 
     /**
      * @param exchange The exchange containing the JSON string to validate
-     * @return true if the Json trees match (uses the Jackson ObjectMapper to unmarshal the string and compare using Java equality)
+     * @return true if the JSON matches the expected tree (as with Java equality of Jackson trees)
      */
-    public synchronized boolean matches(Exchange exchange) {
+    public boolean matches(Exchange exchange) {
+        Object body = exchange.getIn().getBody();
+        if (body instanceof byte[] || body instanceof StreamCache) {
+            //the body is streamed straight into the comparison rather than being converted to a String
+            MessageHelper.resetStreamCache(exchange.getIn());
+            try {
+                JsonNode expected = getExpectedJson();
+                if (expected == null) return false;
+
+                JsonParser parser = body instanceof byte[] ?
+                        mapper.getJsonFactory().createJsonParser((byte[]) body) :
+                        mapper.getJsonFactory().createJsonParser(exchange.getIn().getBody(InputStream.class));
+                return compare(expected, parser);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            } finally {
+                MessageHelper.resetStreamCache(exchange.getIn());
+            }
+        }
+
         String value;
         try {
-            value = exchange.getIn().getBody(String.class);
+            value = ParsedBodyCache.getBody(exchange, String.class);
         } catch (TypeConversionException e) {
             logger.warn("Error attempting to convert JSON to a String", e);
             return false;
@@ -85,26 +123,25 @@ public class JsonTestResource extends StaticTestResource<String> {
 
     public boolean validate(String value) {
         try {
-            if (value == null || !validJson()) return false;
+            JsonNode expected = getExpectedJson();
+            if (value == null || expected == null) return false;
 
-            String expectedInput = getValue();
+            logger.debug("Expected JSON Input: {},\nActual JSON Input: {}", super.getValue(), value);
 
-            logger.debug("Expected JSON Input: {},\nActual JSON Input: {}", expectedInput,
-                    value);
+            if (value.isEmpty()) return false;
 
-            if (value.isEmpty() || expectedInput.isEmpty()) return value.isEmpty() && expectedInput.isEmpty();
-
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode expectedJson = mapper.readTree(expectedInput);
-            JsonNode inputJson = mapper.readTree(value);
-            boolean equal = expectedJson.equals(inputJson);
-            if (!equal) logger.warn("Differences exist between the expected JSON value and the encountered value");
-            return equal;
+            return compare(expected, mapper.getJsonFactory().createJsonParser(value));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    private boolean compare(JsonNode expected, JsonParser actual) throws Exception {
+        boolean equal = comparator.equal(expected, actual);
+        if (!equal) logger.warn("Differences exist between the expected JSON value and the encountered value");
+        return equal;
+    }
+
     @Override
     public String toString() {
         try {
@@ -1,5 +1,6 @@
 package nz.ac.auckland.morc.resource;
 
+import nz.ac.auckland.morc.utility.ParsedBodyCache;
 import org.apache.camel.Exchange;
 import org.apache.camel.TypeConversionException;
 import org.apache.cxf.helpers.IOUtils;
@@ -48,10 +49,10 @@ public class PlainTextTestResource extends StaticTestResource<String> {
      * @param exchange The exchange containing the text string to validate against
      * @return true if the input String is the same as the test resource using Java String equality
      */
-    public synchronized boolean matches(Exchange exchange) {
+    public boolean matches(Exchange exchange) {
         String value;
         try {
-            value = exchange.getIn().getBody(String.class);
+            value = ParsedBodyCache.getBody(exchange, String.class);
         } catch (TypeConversionException e) {
             logger.warn("Error attempting to convert exchange to a String", e);
             return false;
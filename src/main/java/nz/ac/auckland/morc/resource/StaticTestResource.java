@@ -1,12 +1,16 @@
 package nz.ac.auckland.morc.resource;
 
+import nz.ac.auckland.morc.utility.LazyUrlInputStream;
 import org.apache.camel.Exchange;
 import org.apache.camel.Predicate;
 import org.apache.camel.Processor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
 
 /**
@@ -20,7 +24,9 @@ public abstract class StaticTestResource<T> implements Predicate, Processor, Tes
     private static final Logger logger = LoggerFactory.getLogger(StaticTestResource.class);
 
     private InputStream stream;
-    private T value;
+    //published once loaded so that the value can be read without locking
+    private volatile T value;
+    private Exception loadFailure;
     private ContentTypeTestResource contentTypeTestResource;
 
     private StaticTestResource() {
@@ -39,12 +45,7 @@ public abstract class StaticTestResource<T> implements Predicate, Processor, Tes
      * @param file A reference to a file containing a resource of the specified type T
      */
     public StaticTestResource(File file) {
-        this();
-        try {
-            this.stream = new FileInputStream(file);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
+        this(toUrl(file));
     }
 
     /**
@@ -52,9 +53,14 @@ public abstract class StaticTestResource<T> implements Predicate, Processor, Tes
      */
     public StaticTestResource(URL url) {
         this();
+        //the resource isn't opened until its value is first needed
+        this.stream = new LazyUrlInputStream(url);
+    }
+
+    private static URL toUrl(File file) {
         try {
-            this.stream = url.openStream();
-        } catch (IOException e) {
+            return file.toURI().toURL();
+        } catch (MalformedURLException e) {
             throw new RuntimeException(e);
         }
     }
@@ -74,13 +80,28 @@ public abstract class StaticTestResource<T> implements Predicate, Processor, Tes
     /**
      * @return The test resource in the appropriate format
      * @throws IOException
+     * @throws Exception   if the resource couldn't be loaded; later calls throw the same exception
      */
     public T getValue() throws Exception {
-        if (value != null) return value;
-
-        value = getResource(stream);
-        stream.close();
-        return value;
+        T loadedValue = value;
+        if (loadedValue != null) return loadedValue;
+
+        synchronized (this) {
+            if (value == null) {
+                if (loadFailure != null) throw loadFailure;
+                try {
+                    value = getResource(stream);
+                } catch (Exception e) {
+                    //the stream can't be read again, so later calls report the same failure
+                    loadFailure = e;
+                    throw e;
+                } finally {
+                    stream.close();
+                    stream = null;
+                }
+            }
+            return value;
+        }
     }
 
     @Override
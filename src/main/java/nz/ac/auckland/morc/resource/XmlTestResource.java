@@ -1,8 +1,12 @@
 package nz.ac.auckland.morc.resource;
 
+import nz.ac.auckland.morc.utility.ParsedBodyCache;
+import nz.ac.auckland.morc.utility.StreamingXmlComparator;
 import nz.ac.auckland.morc.utility.XmlUtilities;
 import org.apache.camel.Exchange;
+import org.apache.camel.StreamCache;
 import org.apache.camel.TypeConversionException;
+import org.apache.camel.util.MessageHelper;
 import org.custommonkey.xmlunit.DetailedDiff;
 import org.custommonkey.xmlunit.Diff;
 import org.slf4j.Logger;
@@ -10,9 +14,14 @@ import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXParseException;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Provides a mechanism for retrieving XML values from a file/URL/String and also
@@ -24,6 +33,10 @@ public class XmlTestResource extends StaticTestResource<Document> {
 
     private static final Logger logger = LoggerFactory.getLogger(XmlTestResource.class);
     private XmlUtilities xmlUtilities = new XmlUtilities();
+    //the expected document is streamed from its serialized form so that documents which are the same need no DOM;
+    //as a DOM isn't safe to read from several threads at once, any other comparison parses its own copy from this
+    private volatile byte[] expectedBytes;
+    private final StreamingXmlComparator comparator = new StreamingXmlComparator();
 
     public XmlTestResource(Document value) {
         super(value);
@@ -91,12 +104,31 @@ public class XmlTestResource extends StaticTestResource<Document> {
 
     /**
      * @param exchange The exchange containing the XML document to validate
-     * @return true if the input and test resource are similar using XMLUnit's Diff.similar()
+     * @return true if the input and test resource are the same when streamed, or similar using XMLUnit's
+     * Diff.similar()
      */
-    public synchronized boolean matches(Exchange exchange) {
+    public boolean matches(Exchange exchange) {
+        Object body = exchange.getIn().getBody();
+        if (body instanceof byte[] || body instanceof StreamCache || body instanceof String) {
+            MessageHelper.resetStreamCache(exchange.getIn());
+            try {
+                XMLStreamReader actual;
+                if (body instanceof String) actual = StreamingXmlComparator.createReader(new StringReader((String) body));
+                else if (body instanceof byte[])
+                    actual = StreamingXmlComparator.createReader(new ByteArrayInputStream((byte[]) body));
+                else actual = StreamingXmlComparator.createReader(exchange.getIn().getBody(InputStream.class));
+                if (streamingSimilar(actual)) return true;
+            } catch (XMLStreamException e) {
+                logger.debug("Unable to stream the XML for comparison", e);
+            } finally {
+                MessageHelper.resetStreamCache(exchange.getIn());
+            }
+        }
+
+        //XMLUnit decides (and describes) anything the streaming comparison didn't find to be similar
         Document value;
         try {
-            value = exchange.getIn().getBody(Document.class);
+            value = ParsedBodyCache.getBody(exchange, Document.class);
         } catch (TypeConversionException e) {
             logger.warn("Error attempting to convert XML to a Document", e);
             return false;
@@ -105,6 +137,13 @@ public class XmlTestResource extends StaticTestResource<Document> {
     }
 
     public boolean validate(String value) {
+        if (value == null) return false;
+        try {
+            if (streamingSimilar(StreamingXmlComparator.createReader(new StringReader(value)))) return true;
+        } catch (XMLStreamException e) {
+            logger.debug("Unable to stream the XML for comparison", e);
+        }
+
         Document doc;
         try {
             doc = xmlUtilities.getXmlAsDocument(value);
@@ -121,26 +160,56 @@ public class XmlTestResource extends StaticTestResource<Document> {
     public boolean validate(Document value) {
         if (value == null) return false;
         try {
-            Document expectedValue = getValue();
+            Document expectedValue = xmlUtilities.getXmlAsDocument(new ByteArrayInputStream(getExpectedBytes()));
 
-            logger.debug("Expected XML Value: {},\nActual XML Value: {}", xmlUtilities.getDocumentAsString(expectedValue).trim()
-                    , xmlUtilities.getDocumentAsString(value).trim());
+            if (logger.isDebugEnabled())
+                logger.debug("Expected XML Value: {},\nActual XML Value: {}", xmlUtilities.getDocumentAsString(expectedValue).trim()
+                        , xmlUtilities.getDocumentAsString(value).trim());
 
-            DetailedDiff difference = new DetailedDiff(new Diff(expectedValue, value));
-            if (!difference.similar())
-                logger.warn("Differences exist between two documents: {}", difference.getAllDifferences());
-            else
+            Diff diff = new Diff(expectedValue, value);
+            if (diff.similar()) {
                 logger.debug("No differences exist for input");
-            return difference.similar();
+                return true;
+            }
+
+            DetailedDiff difference = new DetailedDiff(diff);
+            logger.warn("Differences exist between two documents: {}", difference.getAllDifferences());
+            return false;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    private boolean streamingSimilar(XMLStreamReader actual) throws XMLStreamException {
+        boolean similar = comparator.similar(StreamingXmlComparator.createReader(
+                new ByteArrayInputStream(getExpectedBytes())), actual);
+        if (similar) logger.debug("No differences exist for input");
+        return similar;
+    }
+
+    private byte[] getExpectedBytes() {
+        byte[] bytes = expectedBytes;
+        if (bytes != null) return bytes;
+
+        synchronized (this) {
+            if (expectedBytes == null) {
+                try {
+                    Document value = getValue();
+                    synchronized (value) {
+                        expectedBytes = StreamingXmlComparator.getDocumentAsBytes(value);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return expectedBytes;
+        }
+    }
+
     @Override
     public String toString() {
         try {
-            String value = "XmlTestResource:" + xmlUtilities.getDocumentAsString(getValue());
+            String value = "XmlTestResource:" + new String(getExpectedBytes(), StandardCharsets.UTF_8);
             value = value.replace("\n", "").replace("\r", "");
             if (value.length() < 100) return value;
             else return value.substring(0, 97) + "...";
@@ -35,6 +35,14 @@ public class AsyncOrchestratedTestBuilder extends OrchestratedTestSpecification.
         return addProcessors(processors);
     }
 
+    /**
+     * @param processors Processors that will each populate a separate message (in order), such as the resources
+     *                   created from a data source
+     */
+    public AsyncOrchestratedTestBuilder inputs(Iterable<? extends Processor> processors) {
+        return addProcessorSeries(processors);
+    }
+
     /**
      * Replay the same request for the specified number of times
      *
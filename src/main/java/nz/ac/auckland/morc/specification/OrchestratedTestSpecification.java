@@ -3,6 +3,7 @@ package nz.ac.auckland.morc.specification;
 import nz.ac.auckland.morc.MorcBuilder;
 import nz.ac.auckland.morc.TestBean;
 import nz.ac.auckland.morc.endpointoverride.EndpointOverride;
+import nz.ac.auckland.morc.mock.ExchangeRetention;
 import nz.ac.auckland.morc.mock.MockDefinition;
 import org.apache.camel.Exchange;
 import org.apache.camel.Predicate;
@@ -30,6 +31,8 @@ public class OrchestratedTestSpecification {
     private Collection<EndpointNode> endpointNodesOrdering;
     private Processor mockFeedPreprocessor;
     private long sendInterval;
+    private int concurrency;
+    private ExchangeRetention retention;
     private int partCount;
     private OrchestratedTestSpecification nextPart;
     private List<Processor> processors;
@@ -77,6 +80,20 @@ public class OrchestratedTestSpecification {
         return sendInterval;
     }
 
+    /**
+     * @return The maximum number of messages that will be in-flight to the target endpoint at the same time
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return Decides which of the responses from the target endpoint are kept for describing failures
+     */
+    public ExchangeRetention getRetention() {
+        return retention;
+    }
+
     /**
      * @return The endpoint URI of the target service under testing
      */
@@ -146,6 +163,8 @@ public class OrchestratedTestSpecification {
         private String description;
         private Map<String, MockDefinition> mockExpectations = new HashMap<>();
         private long sendInterval = 1000l;
+        private int concurrency = 1;
+        private ExchangeRetention retention = ExchangeRetention.ALL;
         private int partCount = 1;
         private OrchestratedTestSpecification nextPart = null;
         private Collection<EndpointNode> endpointNodesOrdering = new ArrayList<>();
@@ -356,6 +375,34 @@ public class OrchestratedTestSpecification {
             return self();
         }
 
+        /**
+         * @param concurrency The maximum number of messages that will be in-flight to the target endpoint at the same
+         *                    time, defaults to 1. When this is greater than 1 the send interval is not used and a message
+         *                    is sent as soon as a previous one completes; each response is validated against the
+         *                    expectation for its own request regardless of the order responses arrive in. Mock ordering
+         *                    requirements should allow for the requests being processed concurrently.
+         */
+        public Builder concurrency(int concurrency) {
+            if (concurrency < 1)
+                throw new IllegalArgumentException("The concurrency for sending messages must be at least 1");
+            this.concurrency = concurrency;
+            return self();
+        }
+
+        /**
+         * @param retention Decides which of the responses from the target endpoint are kept until the end of this
+         *                  part for describing failures; each response is validated as it arrives so keeping fewer
+         *                  (ExchangeRetention.NONE, FAILURES or firstN) saves memory with large or many responses.
+         *                  The default keeps all responses
+         */
+        public Builder retain(ExchangeRetention retention) {
+            if (retention == null)
+                throw new IllegalArgumentException("The retention for the responses of test " + description +
+                        " must be provided");
+            this.retention = retention;
+            return self();
+        }
+
         /**
          * @param endpointUri Specify an additional endpoint to call after this part of the test specification has
          *                    completed successfully
@@ -440,6 +487,8 @@ public class OrchestratedTestSpecification {
         this.mockDefinitions = builder.mockExpectations.values();
         this.endpointOverrides = builder.getEndpointOverrides();
         this.sendInterval = builder.sendInterval;
+        this.concurrency = builder.concurrency;
+        this.retention = builder.retention;
         this.partCount = builder.partCount;
         this.nextPart = builder.nextPart;
         this.endpointNodesOrdering = builder.endpointNodesOrdering;
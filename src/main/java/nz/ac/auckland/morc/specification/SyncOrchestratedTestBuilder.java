@@ -49,6 +49,14 @@ public class SyncOrchestratedTestBuilder extends OrchestratedTestSpecification.O
         return addProcessors(processors);
     }
 
+    /**
+     * @param processors Processors that will each populate a separate request (in order), such as the resources
+     *                   created from a data source
+     */
+    public SyncOrchestratedTestBuilder requests(Iterable<? extends Processor> processors) {
+        return addProcessorSeries(processors);
+    }
+
     /**
      * Replay the same request for the specified number of times
      *
@@ -66,6 +74,14 @@ public class SyncOrchestratedTestBuilder extends OrchestratedTestSpecification.O
         return addPredicates(predicates);
     }
 
+    /**
+     * @param predicates Predicates that will each validate a separate response (in order), such as the resources
+     *                   created from a data source
+     */
+    public SyncOrchestratedTestBuilder expectations(Iterable<? extends Predicate> predicates) {
+        return addPredicateSeries(predicates);
+    }
+
     /**
      * Expect a repeat of the same predicates multiple times
      *
@@ -0,0 +1,229 @@
+package nz.ac.auckland.morc.utility;
+
+import au.com.bytecode.opencsv.CSVReader;
+import nz.ac.auckland.morc.resource.TestResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A data source for Groovy templates that reads the rows of a CSV document as they are iterated over, rather than
+ * loading the whole document into memory. The header line sets the name of the variables, and is indexed once and
+ * shared by every row, so each row only holds its own values. The document is read again (and the headers checked
+ * again) each time the data source is iterated over, and is closed once the last row has been read or a row is
+ * invalid; an iterator that is abandoned before then must be closed (e.g. with try-with-resources).
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class CsvDataSource implements Iterable<Map<String, String>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvDataSource.class);
+
+    private final ReaderSource source;
+    private final String description;
+
+    /**
+     * @param url A url pointing to a CSV document encoded as UTF-8
+     */
+    public CsvDataSource(final URL url) {
+        this.source = () -> new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8));
+        this.description = url.toString();
+    }
+
+    /**
+     * @param file A file containing a CSV document encoded as UTF-8
+     */
+    public CsvDataSource(File file) {
+        this(toUrl(file));
+    }
+
+    /**
+     * @param resource A resource containing a CSV document
+     */
+    public CsvDataSource(final TestResource<String> resource) {
+        this.source = () -> {
+            try {
+                return new StringReader(resource.getValue());
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        };
+        this.description = resource.toString();
+    }
+
+    private static URL toUrl(File file) {
+        try {
+            return file.toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return An iterator that reads the next row of the document each time it is advanced, which should be closed if
+     * it isn't iterated to the end
+     * @throws IllegalArgumentException if the headers are not unique, or (as the iterator reaches it) a line has a
+     *                                  different number of values to the headers
+     */
+    @Override
+    public RowIterator iterator() {
+        try {
+            return new RowIterator(new CSVReader(source.open()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CsvDataSource:" + description;
+    }
+
+    private interface ReaderSource {
+        Reader open() throws IOException;
+    }
+
+    /**
+     * Reads the rows of the document as it is advanced, keeping the document open until the last row has been read
+     */
+    public class RowIterator implements Iterator<Map<String, String>>, Closeable {
+        private CSVReader reader;
+        private final Map<String, Integer> headerIndex = new LinkedHashMap<>();
+        private String[] nextLine;
+        private int line = 2;
+
+        RowIterator(CSVReader reader) throws IOException {
+            this.reader = reader;
+
+            try {
+                String[] headers = reader.readNext();
+                if (headers == null)
+                    throw new IllegalArgumentException("The csv " + description + " does not have a header line");
+
+                for (int i = 0; i < headers.length; i++) {
+                    headerIndex.put(headers[i], i);
+                }
+
+                if (headerIndex.size() != headers.length)
+                    throw new IllegalArgumentException("The headers for the csv " + description + " are not unique");
+
+                nextLine = reader.readNext();
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+
+            if (nextLine == null) close();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLine != null;
+        }
+
+        @Override
+        public Map<String, String> next() {
+            if (nextLine == null) throw new NoSuchElementException();
+
+            String[] values = nextLine;
+            try {
+                if (values.length != headerIndex.size())
+                    throw new IllegalArgumentException("The CSV resource " + description + " has a different " +
+                            "number of headers and values for line " + line);
+
+                nextLine = reader.readNext();
+            } catch (IOException e) {
+                close();
+                throw new RuntimeException(e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+
+            line++;
+            if (nextLine == null) close();
+
+            return new Row(headerIndex, values);
+        }
+
+        /**
+         * Closes the document without reading any further rows; this is done automatically once the last row has been
+         * read or a row is invalid
+         */
+        @Override
+        public void close() {
+            nextLine = null;
+            if (reader == null) return;
+
+            try {
+                reader.close();
+            } catch (IOException e) {
+                logger.warn("Unable to close the csv {}", description, e);
+            }
+            reader = null;
+        }
+    }
+
+    /**
+     * A read-only view of the values of a single row, looked up through the header index shared by all rows
+     */
+    private static class Row extends AbstractMap<String, String> {
+        private final Map<String, Integer> headerIndex;
+        private final String[] values;
+
+        Row(Map<String, Integer> headerIndex, String[] values) {
+            this.headerIndex = headerIndex;
+            this.values = values;
+        }
+
+        @Override
+        public String get(Object key) {
+            Integer index = headerIndex.get(key);
+            return index == null ? null : values[index];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return headerIndex.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    final Iterator<Entry<String, Integer>> headers = headerIndex.entrySet().iterator();
+                    return new Iterator<Entry<String, String>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return headers.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            Entry<String, Integer> header = headers.next();
+                            return new SimpleImmutableEntry<>(header.getKey(), values[header.getValue()]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package nz.ac.auckland.morc.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies (in nanoseconds) that can be recorded to from many threads at once without locking.
+ * Each power of two is split into 16 buckets so any percentile is accurate to within about 6% of the real value,
+ * while the memory used stays fixed regardless of how many latencies are recorded.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    //values below SUB_BUCKETS have their own bucket, after that each power of two has SUB_BUCKETS buckets
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param latency The latency in nanoseconds to record; negative values are recorded as 0
+     */
+    public void record(long latency) {
+        if (latency < 0) latency = 0;
+
+        counts.incrementAndGet(bucketIndex(latency));
+        count.incrementAndGet();
+        total.addAndGet(latency);
+        max.accumulateAndGet(latency, Math::max);
+    }
+
+    /**
+     * @return The number of latencies that have been recorded
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return The largest latency recorded in nanoseconds, or 0 if none have been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return The mean latency recorded in nanoseconds, or 0 if none have been recorded
+     */
+    public double getMean() {
+        long currentCount = count.get();
+        return currentCount == 0 ? 0 : (double) total.get() / currentCount;
+    }
+
+    /**
+     * @param percentile A percentile between 0 and 100
+     * @return The latency in nanoseconds that the given percentage of recorded latencies are at or below
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("A percentile must be between 0 and 100");
+
+        //we count the buckets rather than use count in case latencies are recorded while we're looking
+        long recorded = 0;
+        for (int i = 0; i < counts.length(); i++)
+            recorded += counts.get(i);
+
+        if (recorded == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) return Math.min(highestValueInBucket(i), getMax());
+        }
+
+        return getMax();
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + subBucket) << shift;
+        //the very largest buckets overflow, so we cap them
+        return lowest < 0 ? Long.MAX_VALUE : lowest + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count: %d, p50: %.3fms, p90: %.3fms, p99: %.3fms, max: %.3fms", getCount(),
+                getValueAtPercentile(50) / 1e6, getValueAtPercentile(90) / 1e6, getValueAtPercentile(99) / 1e6,
+                getMax() / 1e6);
+    }
+}
@@ -0,0 +1,75 @@
+package nz.ac.auckland.morc.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+/**
+ * An input stream that doesn't open its URL until it is first read, and closes it again as soon as the end of the
+ * content has been reached, so that resources created up front (e.g. for every file in a directory) don't hold a file
+ * handle until they're used.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class LazyUrlInputStream extends InputStream {
+
+    private final URL url;
+    private InputStream stream;
+    private boolean closed;
+
+    public LazyUrlInputStream(URL url) {
+        this.url = url;
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+    private InputStream getStream() throws IOException {
+        if (stream == null) stream = url.openStream();
+        return stream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (closed) return -1;
+        int value = getStream().read();
+        if (value == -1) close();
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (closed) return -1;
+        int count = getStream().read(buffer, offset, length);
+        if (count == -1) close();
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return closed ? 0 : getStream().skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return closed || stream == null ? 0 : stream.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (stream == null) return;
+
+        try {
+            stream.close();
+        } finally {
+            stream = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LazyUrlInputStream:" + url;
+    }
+}
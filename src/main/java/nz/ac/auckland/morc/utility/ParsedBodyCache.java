@@ -0,0 +1,57 @@
+package nz.ac.auckland.morc.utility;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.util.MessageHelper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the representations (such as a Document or String) that the body of an exchange has been converted to, so
+ * that when a message is validated by several predicates the body is only parsed once for each type. The cache is
+ * held as a property of the exchange and is discarded as soon as the body is replaced, e.g. by a mock response.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class ParsedBodyCache {
+
+    public static final String PROPERTY = "morcParsedBodyCache";
+
+    private final Object body;
+    private final Map<Class<?>, Object> representations = new ConcurrentHashMap<>();
+
+    private ParsedBodyCache(Object body) {
+        this.body = body;
+    }
+
+    /**
+     * @param exchange The exchange with the (in) body to convert
+     * @param type     The type to convert the body to
+     * @return The body converted to the type, from a previous conversion of the same body if there has been one, or
+     * null if the body is null or can't be converted
+     * @throws org.apache.camel.TypeConversionException if the conversion failed
+     */
+    public static <T> T getBody(Exchange exchange, Class<T> type) {
+        Message message = exchange.getIn();
+        Object body = message.getBody();
+        if (body == null) return null;
+        if (type.isInstance(body)) return type.cast(body);
+
+        ParsedBodyCache cache = exchange.getProperty(PROPERTY, ParsedBodyCache.class);
+        if (cache == null || cache.body != body) {
+            cache = new ParsedBodyCache(body);
+            exchange.setProperty(PROPERTY, cache);
+        }
+
+        Object value = cache.representations.get(type);
+        if (value == null) {
+            //a stream cached body may have been read by a previous predicate
+            MessageHelper.resetStreamCache(message);
+            value = message.getBody(type);
+            if (value != null) cache.representations.put(type, value);
+        }
+
+        return type.cast(value);
+    }
+}
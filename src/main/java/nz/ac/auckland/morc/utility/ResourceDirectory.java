@@ -0,0 +1,57 @@
+package nz.ac.auckland.morc.utility;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves Ant-style paths to the URLs of the resources they match, sorted alphabetically. A path is only resolved
+ * once by each resource directory, as scanning a large directory (or jar) for each specification is slow; resources
+ * added to a directory after its path has been resolved are therefore not seen until the resource directory is
+ * cleared. A MorcTestBuilder keeps its own resource directory for the specifications it configures.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class ResourceDirectory {
+
+    private final Map<String, List<URL>> resolvedPaths = new ConcurrentHashMap<>();
+
+    /**
+     * @param urlpath An Ant-style path to a directory containing test resources
+     * @return The URLs of the matching resources, sorted alphabetically
+     */
+    public List<URL> getUrls(String urlpath) {
+        return resolvedPaths.computeIfAbsent(urlpath, ResourceDirectory::resolve);
+    }
+
+    /**
+     * Forgets every resolved path, so that resources added or removed since are seen the next time a path is resolved
+     */
+    public void clear() {
+        resolvedPaths.clear();
+    }
+
+    private static List<URL> resolve(String urlpath) {
+        List<URL> resourceUrls = new ArrayList<>();
+
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(urlpath)) {
+                resourceUrls.add(resource.getURL());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        //sort them alphabetically first
+        Collections.sort(resourceUrls, (o1, o2) -> o1.toString().compareTo(o2.toString()));
+
+        return Collections.unmodifiableList(resourceUrls);
+    }
+}
@@ -0,0 +1,97 @@
+package nz.ac.auckland.morc.utility;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compares a JSON document, read token by token, against an expected tree and stops at the first token that doesn't
+ * match, so the actual document is never built into a tree of its own. Documents are equal under the same rules as
+ * JsonNode.equals(): object fields may be in any order, array elements must be in order, and numbers must be of the
+ * same type (e.g. 1 is not equal to 1.0). An object that repeats a field name is reported as a difference.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class StreamingJsonComparator {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingJsonComparator.class);
+
+    /**
+     * @param expected The expected JSON tree
+     * @param actual   A parser for the actual JSON document, which will be closed
+     * @return true if the first value in the actual document is equal to the expected tree
+     * @throws IOException if the actual document could not be read or isn't valid JSON (up to the first difference)
+     */
+    public boolean equal(JsonNode expected, JsonParser actual) throws IOException {
+        try {
+            JsonToken token = actual.nextToken();
+            return token != null && equal(expected, token, actual, "");
+        } finally {
+            actual.close();
+        }
+    }
+
+    private boolean equal(JsonNode expected, JsonToken token, JsonParser actual, String path) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                if (!expected.isObject()) return differs(path, "an object");
+                Set<String> fieldNames = new HashSet<>();
+                while ((token = actual.nextToken()) == JsonToken.FIELD_NAME) {
+                    String fieldName = actual.getCurrentName();
+                    JsonNode expectedField = expected.get(fieldName);
+                    if (expectedField == null) return differs(path + "/" + fieldName, "an unexpected field");
+                    if (!fieldNames.add(fieldName)) return differs(path + "/" + fieldName, "a repeated field");
+                    if (!equal(expectedField, actual.nextToken(), actual, path + "/" + fieldName)) return false;
+                }
+                return fieldNames.size() == expected.size() || differs(path, "missing fields");
+            case START_ARRAY:
+                if (!expected.isArray()) return differs(path, "an array");
+                int index = 0;
+                while ((token = actual.nextToken()) != JsonToken.END_ARRAY) {
+                    if (index >= expected.size()) return differs(path, "too many elements");
+                    if (!equal(expected.get(index), token, actual, path + "/" + index)) return false;
+                    index++;
+                }
+                return index == expected.size() || differs(path, "too few elements");
+            case VALUE_STRING:
+                return (expected.isTextual() && expected.getTextValue().equals(actual.getText())) ||
+                        differs(path, "a different string");
+            case VALUE_NUMBER_INT:
+                return equalInteger(expected, actual) || differs(path, "a different integer");
+            case VALUE_NUMBER_FLOAT:
+                return (expected.isDouble() && expected.getDoubleValue() == actual.getDoubleValue()) ||
+                        differs(path, "a different number");
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return (expected.isBoolean() && expected.getBooleanValue() == (token == JsonToken.VALUE_TRUE)) ||
+                        differs(path, "a different boolean");
+            case VALUE_NULL:
+                return expected.isNull() || differs(path, "null");
+            default:
+                return differs(path, "an unsupported token " + token);
+        }
+    }
+
+    private boolean equalInteger(JsonNode expected, JsonParser actual) throws IOException {
+        //the tree deserializer uses the smallest of these types that will hold the value
+        switch (actual.getNumberType()) {
+            case INT:
+                return expected.isInt() && expected.getIntValue() == actual.getIntValue();
+            case LONG:
+                return expected.isLong() && expected.getLongValue() == actual.getLongValue();
+            default:
+                return expected.isBigInteger() && expected.getBigIntegerValue().equals(actual.getBigIntegerValue());
+        }
+    }
+
+    private boolean differs(String path, String description) {
+        logger.debug("JSON differs at {}: found {}", path.isEmpty() ? "/" : path, description);
+        return false;
+    }
+}
@@ -0,0 +1,230 @@
+package nz.ac.auckland.morc.utility;
+
+import org.custommonkey.xmlunit.XMLUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Compares two XML documents by walking them as StAX event streams, stopping at the first difference, so that no
+ * DOM is built for documents that are the same. Whitespace and comments are handled according to the current XMLUnit
+ * settings (see MorcTest.configureXmlUnit). This only recognises documents that XMLUnit would consider identical or
+ * similar because of namespace prefixes, attribute order, whitespace or comments; a difference here may still be
+ * similar to XMLUnit (e.g. reordered elements), so XMLUnit should decide, and describe, any documents that differ.
+ *
+ * @author David MacDonald - d.macdonald@auckland.ac.nz
+ */
+public class StreamingXmlComparator {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingXmlComparator.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final ThreadLocal<XMLInputFactory> inputFactories = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    });
+
+    private static final ThreadLocal<Transformer> transformers = ThreadLocal.withInitial(() -> {
+        try {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "no");
+            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+            return transformer;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    /**
+     * @param document The document to serialize
+     * @return The document as UTF-8 bytes without any added indentation, so it can be streamed for comparison
+     */
+    public static byte[] getDocumentAsBytes(Document document) {
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            transformers.get().transform(new DOMSource(document), new StreamResult(output));
+            return output.toByteArray();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param stream An XML document
+     * @return A reader for comparing the document
+     */
+    public static XMLStreamReader createReader(InputStream stream) throws XMLStreamException {
+        return inputFactories.get().createXMLStreamReader(stream);
+    }
+
+    /**
+     * @param reader An XML document
+     * @return A reader for comparing the document
+     */
+    public static XMLStreamReader createReader(Reader reader) throws XMLStreamException {
+        return inputFactories.get().createXMLStreamReader(reader);
+    }
+
+    /**
+     * @param expected The expected document, which will be closed
+     * @param actual   The actual document, which will be closed
+     * @return true if no difference was found between the documents, or false at the first difference (or anything
+     * this comparator doesn't handle, such as a DTD)
+     * @throws XMLStreamException if either document isn't well formed
+     */
+    public boolean similar(XMLStreamReader expected, XMLStreamReader actual) throws XMLStreamException {
+        try {
+            Cursor expectedCursor = new Cursor(expected);
+            Cursor actualCursor = new Cursor(actual);
+
+            while (true) {
+                int event = expectedCursor.next();
+                if (event != actualCursor.next()) return differs(actual, "different nodes");
+
+                switch (event) {
+                    case XMLStreamConstants.END_DOCUMENT:
+                        return true;
+                    case XMLStreamConstants.START_ELEMENT:
+                        if (!expected.getName().getLocalPart().equals(actual.getName().getLocalPart()) ||
+                                !namespace(expected).equals(namespace(actual)))
+                            return differs(actual, "different element " + actual.getName());
+                        if (!attributes(expected).equals(attributes(actual)))
+                            return differs(actual, "different attributes on element " + actual.getName());
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                        if (!expectedCursor.text.equals(actualCursor.text) ||
+                                (expectedCursor.cdata != actualCursor.cdata && !XMLUnit.getIgnoreDiffBetweenTextAndCDATA()))
+                            return differs(actual, "different text");
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        if (!expectedCursor.text.equals(actualCursor.text))
+                            return differs(actual, "different comment or processing instruction");
+                        break;
+                    default:
+                        return differs(actual, "unsupported node type " + event);
+                }
+            }
+        } finally {
+            expected.close();
+            actual.close();
+        }
+    }
+
+    private boolean differs(XMLStreamReader actual, String description) {
+        logger.debug("Streaming comparison found {} at line {}", description, actual.getLocation().getLineNumber());
+        return false;
+    }
+
+    private static String namespace(XMLStreamReader reader) {
+        return reader.getNamespaceURI() == null ? "" : reader.getNamespaceURI();
+    }
+
+    private static Map<QName, String> attributes(XMLStreamReader reader) {
+        Map<QName, String> attributes = new HashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            //QName equality ignores the prefix
+            attributes.put(reader.getAttributeName(i), reader.getAttributeValue(i));
+        }
+        return attributes;
+    }
+
+    /**
+     * Moves through the events of a document that are compared, joining adjacent text and applying the XMLUnit
+     * whitespace and comment settings
+     */
+    private static class Cursor {
+        private final XMLStreamReader reader;
+        //true if the reader is positioned on an event that hasn't been returned yet
+        private boolean pending;
+        private boolean finished;
+        private String text;
+        private boolean cdata;
+
+        Cursor(XMLStreamReader reader) {
+            this.reader = reader;
+        }
+
+        int next() throws XMLStreamException {
+            if (finished) return XMLStreamConstants.END_DOCUMENT;
+
+            StringBuilder textBuilder = new StringBuilder();
+            boolean textCdata = false;
+
+            while (true) {
+                int event;
+                if (pending) {
+                    event = reader.getEventType();
+                    pending = false;
+                } else event = reader.next();
+
+                switch (event) {
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        textBuilder.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        continue;
+                    case XMLStreamConstants.CDATA:
+                        textCdata = true;
+                        textBuilder.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        continue;
+                    case XMLStreamConstants.COMMENT:
+                        if (XMLUnit.getIgnoreComments()) continue;
+                        break;
+                    case XMLStreamConstants.START_DOCUMENT:
+                        continue;
+                }
+
+                String significantText = significantText(textBuilder);
+                if (significantText != null) {
+                    pending = true;
+                    text = significantText;
+                    cdata = textCdata;
+                    return XMLStreamConstants.CHARACTERS;
+                }
+
+                if (event == XMLStreamConstants.END_DOCUMENT) finished = true;
+                else if (event == XMLStreamConstants.COMMENT) text = reader.getText();
+                else if (event == XMLStreamConstants.PROCESSING_INSTRUCTION)
+                    text = reader.getPITarget() + " " + reader.getPIData();
+
+                return event;
+            }
+        }
+
+        private static String significantText(StringBuilder textBuilder) {
+            if (textBuilder.length() == 0) return null;
+
+            String value = textBuilder.toString();
+            if (XMLUnit.getIgnoreWhitespace()) {
+                value = value.trim();
+                if (value.isEmpty()) return null;
+            }
+            if (XMLUnit.getNormalizeWhitespace()) value = WHITESPACE.matcher(value).replaceAll(" ");
+
+            return value;
+        }
+    }
+}
@@ -16,16 +16,16 @@ import java.io.InputStream;
 import java.io.StringWriter;
 
 /**
- * A class for handling XML documents. It is a bit heavy having
- * to re-initialize everything each time, but the lack of thread safe in Java
- * and the fact that performance isn't too much of a concern right now means
- * I'm leaving it as is.
+ * A class for handling XML documents. Looking up the parser and transformer factories is expensive, and neither the
+ * factories nor what they create are thread safe, so each thread keeps its own document builder and transformer
+ * which are reused for every document it handles. Subclasses can still override any of the methods below for
+ * special XML requirements.
  *
  * @author David MacDonald - d.macdonald@auckland.ac.nz
  */
 public class XmlUtilities {
 
-    public DocumentBuilder getDocumentBuilder() {
+    private static final ThreadLocal<DocumentBuilder> documentBuilders = ThreadLocal.withInitial(() -> {
         try {
             DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
             dbf.setValidating(false);
@@ -34,6 +34,25 @@ public class XmlUtilities {
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+    });
+
+    private static final ThreadLocal<Transformer> transformers = ThreadLocal.withInitial(() -> {
+        try {
+            return TransformerFactory.newInstance().newTransformer();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    /**
+     * @return A namespace aware, non-validating document builder that belongs to the current thread; it must not be
+     * shared with another thread
+     */
+    public DocumentBuilder getDocumentBuilder() {
+        DocumentBuilder builder = documentBuilders.get();
+        //clear any error handler or entity resolver set by a previous user
+        builder.reset();
+        return builder;
     }
 
     public Document getXmlAsDocument(String xml) {
@@ -60,16 +79,18 @@ public class XmlUtilities {
         }
     }
 
+    /**
+     * @return An indenting UTF-8 transformer that belongs to the current thread; it must not be shared with another
+     * thread, and any output properties or parameters changed on it are cleared the next time it is provided
+     */
     public Transformer getTransformer() {
-        try {
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            return transformer;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        Transformer transformer = transformers.get();
+        //clear any output properties or parameters set by a previous user
+        transformer.reset();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        return transformer;
     }
 
     public String getDocumentAsString(Document doc) {
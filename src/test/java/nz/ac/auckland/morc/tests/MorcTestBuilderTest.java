@@ -18,6 +18,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MorcTestBuilderTest extends Assert implements MorcMethods {
 
@@ -271,6 +272,53 @@ public class MorcTestBuilderTest extends Assert implements MorcMethods {
         assertTrue(json("{ \"foo\": \"abc\" }").matches(e));
     }
 
+    @Test
+    public void testRuntimeResourcesRenderedForEachUse() throws Exception {
+        final AtomicInteger xmlRenders = new AtomicInteger();
+        XmlRuntimeTestResource xmlResource = new XmlRuntimeTestResource(() -> {
+            xmlRenders.incrementAndGet();
+            return "<foo>baz</foo>";
+        }, new XmlUtilities());
+
+        final AtomicInteger jsonRenders = new AtomicInteger();
+        JsonRuntimeTestResource jsonResource = new JsonRuntimeTestResource(() -> {
+            jsonRenders.incrementAndGet();
+            return "{ \"foo\": \"baz\" }";
+        });
+
+        Exchange e = new DefaultExchange(new DefaultCamelContext());
+        for (int i = 0; i < 3; i++) {
+            xmlResource.process(e);
+            assertTrue(xmlResource.matches(e));
+            jsonResource.process(e);
+            assertTrue(jsonResource.matches(e));
+        }
+
+        assertEquals(6, xmlRenders.get());
+        assertEquals(6, jsonRenders.get());
+    }
+
+    @Test
+    public void testTimeDependentRuntimeResources() throws Exception {
+        XmlRuntimeTestResource[] xmlResources = xml(groovy("<foo>${System.nanoTime()}</foo>", var("baz", "1")));
+        JsonRuntimeTestResource[] jsonResources = json(groovy("{ \"foo\": ${System.nanoTime()} }", var("baz", "1")));
+
+        Exchange first = new DefaultExchange(new DefaultCamelContext());
+        Exchange second = new DefaultExchange(new DefaultCamelContext());
+
+        xmlResources[0].process(first);
+        Thread.sleep(10);
+        xmlResources[0].process(second);
+        assertNotEquals(first.getIn().getBody(String.class), second.getIn().getBody(String.class));
+        assertFalse(xmlResources[0].matches(first));
+
+        jsonResources[0].process(first);
+        Thread.sleep(10);
+        jsonResources[0].process(second);
+        assertNotEquals(first.getIn().getBody(String.class), second.getIn().getBody(String.class));
+        assertFalse(jsonResources[0].matches(first));
+    }
+
     @Test
     public void testTextGroovyResource() throws Exception {
         GroovyTemplateTestResource[] resources = text(groovy("$foo $baz", var("foo", "baz"), var("baz", "foo")));
@@ -0,0 +1,52 @@
+package nz.ac.auckland.morc.tests.load;
+
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.load.LoadTestSpecification;
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import nz.ac.auckland.morc.specification.SyncOrchestratedTestBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LoadTestSpecificationBuilderTest extends Assert implements MorcMethods {
+
+    @Test
+    public void testBuild() throws Exception {
+        SyncOrchestratedTestBuilder builder = new SyncOrchestratedTestBuilder("foo", "direct:foo").request(text("1"));
+        OrchestratedTestSpecification spec = builder.build();
+
+        LoadTestSpecification loadTest = new LoadTestSpecification.LoadTestSpecificationBuilder("baz", builder)
+                .rate(10).duration(5000).iterations(100).concurrency(4).maximumErrorRate(0.1).build(spec);
+
+        assertEquals("baz", loadTest.getDescription());
+        assertEquals(spec, loadTest.getSpecification());
+        assertEquals(10, loadTest.getRate(), 0);
+        assertEquals(5000, loadTest.getDuration());
+        assertEquals(100, loadTest.getIterations());
+        assertEquals(4, loadTest.getConcurrency());
+        assertEquals(0.1, loadTest.getMaximumErrorRate(), 0);
+    }
+
+    @Test
+    public void testNoDurationOrIterations() throws Exception {
+        SyncOrchestratedTestBuilder builder = new SyncOrchestratedTestBuilder("foo", "direct:foo").request(text("1"));
+
+        IllegalArgumentException e = null;
+        try {
+            new LoadTestSpecification.LoadTestSpecificationBuilder("baz", builder).rate(10).build(builder.build());
+        } catch (IllegalArgumentException ex) {
+            e = ex;
+        }
+        assertNotNull(e);
+    }
+
+    @Test
+    public void testInvalidMaximumErrorRate() throws Exception {
+        IllegalArgumentException e = null;
+        try {
+            new LoadTestSpecification.LoadTestSpecificationBuilder("baz", null).maximumErrorRate(2);
+        } catch (IllegalArgumentException ex) {
+            e = ex;
+        }
+        assertNotNull(e);
+    }
+}
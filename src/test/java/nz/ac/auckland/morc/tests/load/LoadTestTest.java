@@ -0,0 +1,95 @@
+package nz.ac.auckland.morc.tests.load;
+
+import nz.ac.auckland.morc.MorcTestBuilder;
+import nz.ac.auckland.morc.specification.SyncOrchestratedTestBuilder;
+import org.apache.camel.builder.RouteBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives a simple specification as a load test with the mock standing in for the downstream service
+ */
+public class LoadTestTest extends MorcTestBuilder {
+
+    private static final AtomicInteger firstPartPreprocessed = new AtomicInteger();
+    private static final AtomicInteger secondPartPreprocessed = new AtomicInteger();
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:loadTestInput")
+                        .to("seda:loadTestTarget?waitForTaskToComplete=Always");
+
+                from("direct:loadTestInvalid")
+                        .setBody(constant("<moo/>"));
+            }
+        };
+    }
+
+    @Override
+    public void configure() {
+        SyncOrchestratedTestBuilder spec = syncTest("Load test specification", "direct:loadTestInput")
+                .request(xml("<baz/>"))
+                .addMock(syncMock("seda:loadTestTarget")
+                        .expectation(xml("<baz/>"))
+                        .response(xml("<foo/>")))
+                .expectation(xml("<foo/>"));
+
+        loadTest("Load test with iterations", spec)
+                .iterations(50)
+                .concurrency(5)
+                .maximumErrorRate(0)
+                .resultHandler(result -> {
+                    assertEquals(50, result.getIterationCount());
+                    assertEquals(50, result.getRequestCount());
+                    assertEquals(50, result.getMockMessageCount());
+                    assertEquals(0, result.getErrorCount());
+                    assertEquals(50, result.getLatencies().getCount());
+                });
+
+        loadTest("Load test with rate and duration", spec)
+                .rate(20)
+                .duration(1000)
+                .resultHandler(result -> {
+                    assertTrue(result.getIterationCount() >= 15 && result.getIterationCount() <= 21);
+                    assertTrue(result.getThroughput() > 0);
+                });
+
+        SyncOrchestratedTestBuilder partsSpec = syncTest("Load test specification with parts", "direct:loadTestInput")
+                .request(xml("<baz/>"))
+                .addMock(syncMock("seda:loadTestTarget")
+                        .expectation(xml("<baz/>"))
+                        .response(xml("<foo/>"))
+                        .addMockFeedPreprocessor(exchange -> firstPartPreprocessed.incrementAndGet()))
+                .expectation(xml("<foo/>"))
+                .addPart("direct:loadTestInput")
+                .request(xml("<baz/>"))
+                .addMock(syncMock("seda:loadTestTarget")
+                        .expectation(xml("<baz/>"))
+                        .response(xml("<foo/>"))
+                        .addMockFeedPreprocessor(exchange -> secondPartPreprocessed.incrementAndGet()))
+                .expectation(xml("<foo/>"));
+
+        //each part's messages go through its own mock feed preprocessor
+        loadTest("Load test with a preprocessor for each part", partsSpec)
+                .iterations(10)
+                .maximumErrorRate(0)
+                .resultHandler(result -> {
+                    assertEquals(20, result.getMockMessageCount());
+                    assertTrue(firstPartPreprocessed.get() >= 10);
+                    assertEquals(firstPartPreprocessed.get(), secondPartPreprocessed.get());
+                });
+
+        loadTest("Load test reports errors rather than failing", new SyncOrchestratedTestBuilder("Invalid responses",
+                "direct:loadTestInvalid")
+                .request(xml("<baz/>"))
+                .expectation(xml("<foo/>")))
+                .iterations(10)
+                .resultHandler(result -> {
+                    assertEquals(10, result.getErrorCount());
+                    assertEquals(1.0, result.getErrorRate(), 0);
+                });
+    }
+}
@@ -0,0 +1,82 @@
+package nz.ac.auckland.morc.tests.mock;
+
+import nz.ac.auckland.morc.mock.ArrivalRecorder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ArrivalRecorderTest extends Assert {
+
+    @Test
+    public void testArrivalsInSequence() throws Exception {
+        ArrivalRecorder recorder = new ArrivalRecorder(3);
+        recorder.record("seda://a", 1);
+        recorder.record("seda://b", 2);
+        recorder.record("seda://a", 3);
+
+        List<ArrivalRecorder.Arrival> arrivals = recorder.getArrivals();
+        assertEquals(3, arrivals.size());
+        assertEquals("seda://a", arrivals.get(0).getEndpointUri());
+        assertEquals("seda://b", arrivals.get(1).getEndpointUri());
+        assertEquals("seda://a", arrivals.get(2).getEndpointUri());
+        for (int i = 0; i < arrivals.size(); i++) {
+            assertEquals(i, arrivals.get(i).getSequence());
+            assertEquals(i + 1, arrivals.get(i).getTimestamp());
+        }
+    }
+
+    @Test
+    public void testAwaitFinishesOnExpectedCount() throws Exception {
+        final ArrivalRecorder recorder = new ArrivalRecorder(2);
+        recorder.record("seda://a", System.nanoTime());
+
+        new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                return;
+            }
+            recorder.record("seda://b", System.nanoTime());
+        }).start();
+
+        long startTime = System.currentTimeMillis();
+        assertEquals(2, recorder.await(startTime + 10000));
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+    }
+
+    @Test
+    public void testAwaitTimesOut() throws Exception {
+        ArrivalRecorder recorder = new ArrivalRecorder(2);
+        recorder.record("seda://a", System.nanoTime());
+
+        long startTime = System.currentTimeMillis();
+        assertEquals(1, recorder.await(startTime + 500));
+        assertTrue(System.currentTimeMillis() - startTime >= 500);
+    }
+
+    @Test
+    public void testConcurrentArrivals() throws Exception {
+        final ArrivalRecorder recorder = new ArrivalRecorder(4000);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final String endpointUri = "seda://" + i;
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++)
+                    recorder.record(endpointUri, System.nanoTime());
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        List<ArrivalRecorder.Arrival> arrivals = recorder.getArrivals();
+        assertEquals(4000, recorder.getCount());
+        assertEquals(4000, arrivals.size());
+        for (int i = 0; i < arrivals.size(); i++)
+            assertEquals(i, arrivals.get(i).getSequence());
+    }
+}
@@ -0,0 +1,75 @@
+package nz.ac.auckland.morc.tests.mock;
+
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.mock.EndpointOrderingValidator;
+import nz.ac.auckland.morc.mock.MockDefinition;
+import nz.ac.auckland.morc.mock.builder.AsyncMockDefinitionBuilder;
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import nz.ac.auckland.morc.specification.SyncOrchestratedTestBuilder;
+import org.apache.camel.CamelContext;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EndpointOrderingValidatorTest extends Assert implements MorcMethods {
+
+    private CamelContext context = new DefaultCamelContext();
+
+    private OrchestratedTestSpecification specification() {
+        return new SyncOrchestratedTestBuilder("foo", "seda:input")
+                .addMock(new AsyncMockDefinitionBuilder("seda:a").expectedMessageCount(2).ordering(MockDefinition.OrderingType.TOTAL))
+                .addMock(new AsyncMockDefinitionBuilder("seda:b").expectedMessageCount(1).ordering(MockDefinition.OrderingType.TOTAL))
+                .addMock(new AsyncMockDefinitionBuilder("seda:c").expectedMessageCount(1).ordering(MockDefinition.OrderingType.NONE))
+                .build();
+    }
+
+    @Test
+    public void testInOrder() throws Exception {
+        EndpointOrderingValidator validator = new EndpointOrderingValidator(context,
+                specification().getEndpointNodesOrdering());
+
+        assertTrue(validator.arrived(context.getEndpoint("seda:a")));
+        assertTrue(validator.arrived(context.getEndpoint("seda:a")));
+        assertTrue(validator.arrived(context.getEndpoint("seda:b")));
+        assertTrue(validator.arrived(context.getEndpoint("seda:c")));
+        assertNull(validator.getViolation());
+    }
+
+    @Test
+    public void testUnorderedEndpointAnyTime() throws Exception {
+        EndpointOrderingValidator validator = new EndpointOrderingValidator(context,
+                specification().getEndpointNodesOrdering());
+
+        assertTrue(validator.arrived(context.getEndpoint("seda:c")));
+        assertTrue(validator.arrived(context.getEndpoint("seda:a")));
+        assertTrue(validator.arrived(context.getEndpoint("seda:a")));
+        assertTrue(validator.arrived(context.getEndpoint("seda:b")));
+        assertNull(validator.getViolation());
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        EndpointOrderingValidator validator = new EndpointOrderingValidator(context,
+                specification().getEndpointNodesOrdering());
+
+        assertTrue(validator.arrived(context.getEndpoint("seda:a")));
+        assertFalse(validator.arrived(context.getEndpoint("seda:b")));
+        //once violated every later message is reported as out of order
+        assertFalse(validator.arrived(context.getEndpoint("seda:a")));
+
+        String violation = validator.getViolation();
+        assertNotNull(violation);
+        assertTrue(violation.contains("seda://b was unexpected"));
+        assertTrue(violation.contains("seda://a"));
+        assertTrue(violation.contains("seda://c"));
+    }
+
+    @Test
+    public void testUnknownEndpoint() throws Exception {
+        EndpointOrderingValidator validator = new EndpointOrderingValidator(context,
+                specification().getEndpointNodesOrdering());
+
+        assertFalse(validator.arrived(context.getEndpoint("seda:d")));
+        assertNotNull(validator.getViolation());
+    }
+}
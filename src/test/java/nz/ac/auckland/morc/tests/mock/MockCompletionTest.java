@@ -0,0 +1,108 @@
+package nz.ac.auckland.morc.tests.mock;
+
+import nz.ac.auckland.morc.mock.MockCompletion;
+import nz.ac.auckland.morc.mock.MockDefinition;
+import nz.ac.auckland.morc.mock.builder.AsyncMockDefinitionBuilder;
+import nz.ac.auckland.morc.mock.builder.UnreceivedMockDefinitionBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MockCompletionTest extends Assert {
+
+    @Test
+    public void testUnreceivedWaitsForQuiescence() throws Exception {
+        MockDefinition definition = new UnreceivedMockDefinitionBuilder("seda:a").minimalResultWaitTime(1000).build(null);
+        MockCompletion completion = new MockCompletion(definition);
+
+        long startTime = System.currentTimeMillis();
+        completion.await(startTime);
+        assertTrue(System.currentTimeMillis() - startTime >= 1000);
+        assertFalse(completion.isViolated());
+    }
+
+    @Test
+    public void testQuiescenceMeasuredFromStartTime() throws Exception {
+        MockDefinition definition = new UnreceivedMockDefinitionBuilder("seda:a").minimalResultWaitTime(1000).build(null);
+        MockCompletion completion = new MockCompletion(definition);
+
+        long startTime = System.currentTimeMillis() - 1000;
+        long waitTime = System.currentTimeMillis();
+        completion.await(startTime);
+        assertTrue(System.currentTimeMillis() - waitTime < 500);
+    }
+
+    @Test
+    public void testQuiescenceEndsWhenIdle() throws Exception {
+        MockDefinition definition = new UnreceivedMockDefinitionBuilder("seda:a").minimalResultWaitTime(10000).build(null);
+        MockCompletion completion = new MockCompletion(definition);
+
+        long startTime = System.currentTimeMillis();
+        completion.await(startTime, () -> true);
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+        assertFalse(completion.isViolated());
+    }
+
+    @Test
+    public void testQuiescenceContinuesWhileBusy() throws Exception {
+        MockDefinition definition = new UnreceivedMockDefinitionBuilder("seda:a").minimalResultWaitTime(1000).build(null);
+        MockCompletion completion = new MockCompletion(definition);
+
+        long startTime = System.currentTimeMillis();
+        completion.await(startTime, () -> false);
+        assertTrue(System.currentTimeMillis() - startTime >= 1000);
+    }
+
+    @Test
+    public void testUnreceivedViolationFinishesEarly() throws Exception {
+        MockDefinition definition = new UnreceivedMockDefinitionBuilder("seda:a").minimalResultWaitTime(10000).build(null);
+        final MockCompletion completion = new MockCompletion(definition);
+
+        new Thread(() -> {
+            try {
+                Thread.sleep(500);
+                completion.arrived();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }).start();
+
+        long startTime = System.currentTimeMillis();
+        completion.await(startTime);
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+        assertTrue(completion.isViolated());
+    }
+
+    @Test
+    public void testExpectedMessagesFinishEarly() throws Exception {
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectedMessageCount(2).build(null);
+        final MockCompletion completion = new MockCompletion(definition);
+
+        new Thread(() -> {
+            try {
+                completion.arrived();
+                Thread.sleep(500);
+                completion.arrived();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }).start();
+
+        long startTime = System.currentTimeMillis();
+        completion.await(startTime);
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+        assertEquals(2, completion.getReceivedCount());
+        assertFalse(completion.isViolated());
+    }
+
+    @Test
+    public void testMissingMessagesWaitForResultWaitTime() throws Exception {
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectedMessageCount(1)
+                .minimalResultWaitTime(500).messageResultWaitTime(500).build(null);
+        MockCompletion completion = new MockCompletion(definition);
+
+        long startTime = System.currentTimeMillis();
+        completion.await(startTime);
+        assertTrue(System.currentTimeMillis() - startTime >= 1000);
+        assertEquals(0, completion.getReceivedCount());
+    }
+}
@@ -2,6 +2,7 @@ package nz.ac.auckland.morc.tests.mock;
 
 import nz.ac.auckland.morc.MorcMethods;
 import nz.ac.auckland.morc.endpointoverride.EndpointOverride;
+import nz.ac.auckland.morc.mock.ExchangeRetention;
 import nz.ac.auckland.morc.mock.MockDefinition;
 import nz.ac.auckland.morc.processor.SelectorProcessor;
 import org.apache.camel.Endpoint;
@@ -366,6 +367,41 @@ public class MockDefinitionBuilderTest extends Assert implements MorcMethods {
 
     }
 
+    @Test
+    public void testRetention() throws Exception {
+        MockDefinition def = new MockDefinition.MockDefinitionBuilder("foo").build(null);
+        assertEquals(ExchangeRetention.ALL, def.getRetention());
+
+        MockDefinition first = new MockDefinition.MockDefinitionBuilder("foo").expectedMessageCount(1)
+                .retain(ExchangeRetention.NONE).build(null);
+        MockDefinition merged = new MockDefinition.MockDefinitionBuilder("foo").expectedMessageCount(1)
+                .build(first);
+        assertEquals(ExchangeRetention.NONE, merged.getRetention());
+    }
+
+    @Test
+    public void testFirstNRetentionEquality() throws Exception {
+        assertEquals(ExchangeRetention.firstN(5), ExchangeRetention.firstN(5));
+        assertNotEquals(ExchangeRetention.firstN(5), ExchangeRetention.firstN(6));
+
+        MockDefinition first = new MockDefinition.MockDefinitionBuilder("foo").expectedMessageCount(1)
+                .retain(ExchangeRetention.firstN(5)).build(null);
+        MockDefinition merged = new MockDefinition.MockDefinitionBuilder("foo").expectedMessageCount(1)
+                .retain(ExchangeRetention.firstN(5)).build(first);
+        assertEquals(ExchangeRetention.firstN(5), merged.getRetention());
+    }
+
+    @Test
+    public void testNullRetention() throws Exception {
+        IllegalArgumentException e = null;
+        try {
+            new MockDefinition.MockDefinitionBuilder("foo").retain(null);
+        } catch (IllegalArgumentException ex) {
+            e = ex;
+        }
+        assertNotNull(e);
+    }
+
     public static class StubLenientProcessor extends SelectorProcessor {
         public StubLenientProcessor(List<Processor> processors) {
             super(processors);
@@ -0,0 +1,224 @@
+package nz.ac.auckland.morc.tests.mock;
+
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.mock.ExchangeRetention;
+import nz.ac.auckland.morc.mock.MockDefinition;
+import nz.ac.auckland.morc.mock.RecordingMock;
+import nz.ac.auckland.morc.mock.builder.AsyncMockDefinitionBuilder;
+import nz.ac.auckland.morc.mock.builder.SyncMockDefinitionBuilder;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecordingMockTest extends CamelTestSupport implements MorcMethods {
+
+    private Exchange exchange(String body) {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody(body);
+        return exchange;
+    }
+
+    @Test
+    public void testOrderedMessagesSatisfied() throws Exception {
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectation(text("foo"))
+                .expectation(text("baz")).build(null);
+        RecordingMock mock = new RecordingMock(definition, ExchangeRetention.ALL);
+
+        mock.process(exchange("foo"));
+        mock.process(exchange("baz"));
+
+        mock.assertIsSatisfied();
+        assertEquals(2, mock.getReceivedCount());
+        assertEquals(2, mock.getRetainedExchanges().size());
+        assertEquals("foo", mock.getRetainedExchanges().get(0).getIn().getBody());
+    }
+
+    @Test
+    public void testOrderedMessageNotSatisfied() throws Exception {
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectation(text("foo"))
+                .expectation(text("baz")).build(null);
+        RecordingMock mock = new RecordingMock(definition, ExchangeRetention.ALL);
+        final List<String> violations = new ArrayList<>();
+        mock.setViolationListener(violations::add);
+
+        mock.process(exchange("baz"));
+        mock.process(exchange("foo"));
+
+        AssertionError e = null;
+        try {
+            mock.assertIsSatisfied();
+        } catch (AssertionError ex) {
+            e = ex;
+        }
+        assertNotNull(e);
+        assertTrue(e.getMessage().contains("Message 0"));
+        assertEquals(1, violations.size());
+    }
+
+    @Test
+    public void testUnorderedMessagesSatisfied() throws Exception {
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectation(text("foo"))
+                .expectation(text("baz")).endpointNotOrdered().build(null);
+        RecordingMock mock = new RecordingMock(definition, ExchangeRetention.ALL);
+
+        mock.process(exchange("baz"));
+        mock.process(exchange("foo"));
+
+        mock.assertIsSatisfied();
+    }
+
+    @Test
+    public void testUnorderedMatchedAsArrived() throws Exception {
+        //matching greedily gives the first predicate to "a", which is rematched after its response has been set
+        MockDefinition definition = new SyncMockDefinitionBuilder("seda:a")
+                .expectation(exchange -> !"c".equals(exchange.getIn().getBody(String.class)), text("a"))
+                .response(text("response"), text("response"))
+                .endpointNotOrdered().build(null);
+        RecordingMock mock = new RecordingMock(definition, ExchangeRetention.ALL);
+
+        Exchange exchange = exchange("a");
+        mock.process(exchange);
+        mock.process(exchange("b"));
+
+        assertEquals("response", exchange.getIn().getBody(String.class));
+        mock.assertIsSatisfied();
+    }
+
+    @Test
+    public void testTooManyMessages() throws Exception {
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectation(text("foo")).build(null);
+        RecordingMock mock = new RecordingMock(definition, ExchangeRetention.ALL);
+        final List<String> violations = new ArrayList<>();
+        mock.setViolationListener(violations::add);
+
+        mock.process(exchange("foo"));
+        mock.process(exchange("foo"));
+
+        AssertionError e = null;
+        try {
+            mock.assertIsSatisfied();
+        } catch (AssertionError ex) {
+            e = ex;
+        }
+        assertNotNull(e);
+        assertTrue(e.getMessage().contains("Received message count. Expected"));
+        assertEquals(1, violations.size());
+    }
+
+    @Test
+    public void testProcessorAppliedByIndex() throws Exception {
+        final List<Integer> processed = new ArrayList<>();
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectation(text("foo"))
+                .expectation(text("baz"))
+                .addProcessors(exchange -> processed.add(0), exchange -> processed.add(1)).build(null);
+        RecordingMock mock = new RecordingMock(definition, ExchangeRetention.ALL);
+
+        mock.process(exchange("foo"));
+        mock.process(exchange("baz"));
+
+        assertEquals(2, processed.size());
+        assertEquals(0, (int) processed.get(0));
+        assertEquals(1, (int) processed.get(1));
+    }
+
+    @Test
+    public void testConcurrentArrivals() throws Exception {
+        AsyncMockDefinitionBuilder builder = new AsyncMockDefinitionBuilder("seda:a");
+        for (int i = 0; i < 1000; i++)
+            builder.expectation(text("foo"));
+        final RecordingMock mock = new RecordingMock(builder.build(null), (index, satisfied) -> !satisfied);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 250; j++)
+                        mock.process(exchange("foo"));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        mock.await(System.currentTimeMillis());
+        mock.assertIsSatisfied();
+        assertEquals(1000, mock.getReceivedCount());
+        assertEquals(0, mock.getRetainedExchanges().size());
+    }
+
+    @Test
+    public void testFailuresRetention() throws Exception {
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectation(text("foo"))
+                .expectation(text("baz")).retain(ExchangeRetention.FAILURES).build(null);
+        RecordingMock mock = new RecordingMock(definition);
+
+        mock.process(exchange("foo"));
+        mock.process(exchange("moo"));
+
+        assertEquals(1, mock.getRetainedExchanges().size());
+        assertEquals("moo", mock.getRetainedExchanges().get(0).getIn().getBody());
+
+        AssertionError e = null;
+        try {
+            mock.assertIsSatisfied();
+        } catch (AssertionError ex) {
+            e = ex;
+        }
+        assertNotNull(e);
+        assertTrue(e.getMessage().contains("moo"));
+    }
+
+    @Test
+    public void testFirstNRetention() throws Exception {
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectation(text("foo"))
+                .expectation(text("foo")).expectation(text("foo")).retain(ExchangeRetention.firstN(2)).build(null);
+        RecordingMock mock = new RecordingMock(definition);
+
+        for (int i = 0; i < 3; i++)
+            mock.process(exchange("foo"));
+
+        mock.assertIsSatisfied();
+        assertEquals(2, mock.getRetainedExchanges().size());
+    }
+
+    @Test
+    public void testUnorderedWithoutRetention() throws Exception {
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectation(text("foo"))
+                .expectation(text("baz")).endpointNotOrdered().retain(ExchangeRetention.NONE).build(null);
+        RecordingMock mock = new RecordingMock(definition);
+
+        mock.process(exchange("baz"));
+        mock.process(exchange("foo"));
+
+        mock.assertIsSatisfied();
+        assertEquals(0, mock.getRetainedExchanges().size());
+    }
+
+    @Test
+    public void testUnorderedUnmatchedWithoutRetention() throws Exception {
+        MockDefinition definition = new AsyncMockDefinitionBuilder("seda:a").expectation(text("foo"))
+                .expectation(text("baz")).endpointNotOrdered().retain(ExchangeRetention.NONE).build(null);
+        RecordingMock mock = new RecordingMock(definition);
+
+        mock.process(exchange("foo"));
+        mock.process(exchange("foo"));
+
+        AssertionError e = null;
+        try {
+            mock.assertIsSatisfied();
+        } catch (AssertionError ex) {
+            e = ex;
+        }
+        assertNotNull(e);
+        assertTrue(e.getMessage().contains("not matched"));
+    }
+}
@@ -0,0 +1,128 @@
+package nz.ac.auckland.morc.tests.mock;
+
+import nz.ac.auckland.morc.mock.UnorderedPredicateMatcher;
+import org.apache.camel.Exchange;
+import org.apache.camel.Predicate;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class UnorderedPredicateMatcherTest extends Assert {
+
+    private static Predicate bodyIn(final AtomicInteger evaluations, final String... bodies) {
+        return exchange -> {
+            evaluations.incrementAndGet();
+            return Arrays.asList(bodies).contains(exchange.getIn().getBody(String.class));
+        };
+    }
+
+    private static Exchange exchange(String body) {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getIn().setBody(body);
+        return exchange;
+    }
+
+    @Test
+    public void testAllMatched() throws Exception {
+        AtomicInteger evaluations = new AtomicInteger();
+        UnorderedPredicateMatcher matcher = new UnorderedPredicateMatcher(Arrays.asList(bodyIn(evaluations, "a"),
+                bodyIn(evaluations, "b"), bodyIn(evaluations, "c")));
+
+        matcher.arrived(exchange("c"));
+        matcher.arrived(exchange("a"));
+        matcher.arrived(exchange("b"));
+
+        assertNull(matcher.getUnmatchedExchange());
+    }
+
+    @Test
+    public void testEarlierMessageRematched() throws Exception {
+        AtomicInteger evaluations = new AtomicInteger();
+        //matching greedily would give the first predicate to "a" leaving nothing for "b"
+        UnorderedPredicateMatcher matcher = new UnorderedPredicateMatcher(Arrays.asList(bodyIn(evaluations, "a", "b"),
+                bodyIn(evaluations, "a")));
+
+        matcher.arrived(exchange("a"));
+        matcher.arrived(exchange("b"));
+
+        assertNull(matcher.getUnmatchedExchange());
+    }
+
+    @Test
+    public void testUnmatchedMessage() throws Exception {
+        AtomicInteger evaluations = new AtomicInteger();
+        UnorderedPredicateMatcher matcher = new UnorderedPredicateMatcher(Arrays.asList(bodyIn(evaluations, "a"),
+                bodyIn(evaluations, "b")));
+
+        matcher.arrived(exchange("a"));
+        matcher.arrived(exchange("c"));
+        matcher.arrived(exchange("b"));
+
+        assertNotNull(matcher.getUnmatchedExchange());
+        assertEquals("c", matcher.getUnmatchedExchange().getIn().getBody(String.class));
+    }
+
+    @Test
+    public void testMoreMessagesThanPredicates() throws Exception {
+        AtomicInteger evaluations = new AtomicInteger();
+        UnorderedPredicateMatcher matcher = new UnorderedPredicateMatcher(Arrays.asList(bodyIn(evaluations, "a")));
+
+        matcher.arrived(exchange("a"));
+        matcher.arrived(exchange("a"));
+
+        assertNotNull(matcher.getUnmatchedExchange());
+    }
+
+    @Test
+    public void testEachPairEvaluatedAtMostOnce() throws Exception {
+        AtomicInteger evaluations = new AtomicInteger();
+        List<Predicate> predicates = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            predicates.add(bodyIn(evaluations, "a"));
+
+        UnorderedPredicateMatcher matcher = new UnorderedPredicateMatcher(predicates);
+        for (int i = 0; i < 1000; i++)
+            matcher.arrived(exchange("a"));
+
+        assertNull(matcher.getUnmatchedExchange());
+        assertEquals(1000, evaluations.get());
+    }
+
+    @Test
+    public void testPredicatesEvaluatedConcurrently() throws Exception {
+        final CountDownLatch evaluating = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Predicate blocking = exchange -> {
+            if (!"a".equals(exchange.getIn().getBody(String.class))) return false;
+            evaluating.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
+
+        final UnorderedPredicateMatcher matcher = new UnorderedPredicateMatcher(Arrays.asList(blocking,
+                bodyIn(new AtomicInteger(), "b")));
+
+        Thread slowArrival = new Thread(() -> matcher.arrived(exchange("a")));
+        slowArrival.start();
+        assertTrue(evaluating.await(10, TimeUnit.SECONDS));
+
+        //the second message is matched while the first is still being evaluated
+        matcher.arrived(exchange("b"));
+        assertEquals(-1, matcher.getUnmatchedIndex());
+
+        release.countDown();
+        slowArrival.join();
+        assertNull(matcher.getUnmatchedExchange());
+    }
+}
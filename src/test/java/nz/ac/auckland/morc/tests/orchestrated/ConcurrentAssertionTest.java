@@ -0,0 +1,82 @@
+package nz.ac.auckland.morc.tests.orchestrated;
+
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.MorcTest;
+import nz.ac.auckland.morc.MorcTestBuilder;
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import nz.ac.auckland.morc.specification.SyncOrchestratedTestBuilder;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+public class ConcurrentAssertionTest extends CamelTestSupport implements MorcMethods {
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("vm:concurrentAssertionInput")
+                        .setBody(constant("<foo/>"));
+            }
+        };
+    }
+
+    public MorcTestBuilder createMorcTestBuilder() {
+        return new MorcTestBuilder() {
+            @Override
+            protected void configure() {
+
+            }
+        };
+    }
+
+    @Test
+    public void testUnreceivedMocksWaitConcurrently() throws Exception {
+        MorcTestBuilder morcMethods = createMorcTestBuilder();
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test unreceived mocks wait concurrently",
+                "vm:concurrentAssertionInput")
+                .request(xml("<baz/>"))
+                .expectation(xml("<foo/>"))
+                .addMock(morcMethods.unreceivedMock("vm:concurrentAssertionA").minimalResultWaitTime(3000))
+                .addMock(morcMethods.unreceivedMock("vm:concurrentAssertionB").minimalResultWaitTime(3000))
+                .addMock(morcMethods.unreceivedMock("vm:concurrentAssertionC").minimalResultWaitTime(3000))
+                .addMock(morcMethods.unreceivedMock("vm:concurrentAssertionD").minimalResultWaitTime(3000))
+                .build();
+
+        long startTime = System.currentTimeMillis();
+        MorcTest test = new MorcTest(spec);
+        test.setUp();
+        test.runOrchestratedTest();
+        test.tearDown();
+
+        assertTrue(System.currentTimeMillis() - startTime < 9000);
+    }
+
+    @Test
+    public void testAllFailuresReported() throws Exception {
+        MorcTestBuilder morcMethods = createMorcTestBuilder();
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test all failures reported",
+                "vm:concurrentAssertionInput")
+                .request(xml("<baz/>"))
+                .expectation(xml("<moo/>"))
+                .addMock(morcMethods.asyncMock("vm:concurrentAssertionA").minimalResultWaitTime(1000)
+                        .expectation(xml("<baz/>")))
+                .build();
+
+        AssertionError e = null;
+        try {
+            MorcTest test = new MorcTest(spec);
+            test.setUp();
+            test.runOrchestratedTest();
+        } catch (AssertionError ex) {
+            e = ex;
+        }
+
+        assertNotNull(e);
+        assertTrue(e.getMessage().contains("invalid response"));
+        assertTrue(e.getSuppressed().length > 0);
+    }
+}
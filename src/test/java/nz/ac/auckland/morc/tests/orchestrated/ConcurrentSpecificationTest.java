@@ -0,0 +1,46 @@
+package nz.ac.auckland.morc.tests.orchestrated;
+
+import nz.ac.auckland.morc.MorcTestBuilder;
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * Runs a number of specifications at the same time, each with their own mock endpoints
+ */
+public class ConcurrentSpecificationTest extends MorcTestBuilder {
+
+    @Override
+    protected int getSpecificationConcurrency() {
+        return 3;
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:concurrentSyncInput")
+                        .to("seda:concurrentSyncTarget?waitForTaskToComplete=Always");
+
+                from("direct:concurrentAsyncInput")
+                        .to("seda:concurrentAsyncTarget?waitForTaskToComplete=Never")
+                        .setBody(constant("<foo/>"));
+            }
+        };
+    }
+
+    @Override
+    public void configure() {
+        for (int i = 0; i < 3; i++) {
+            syncTest("Concurrent sync specification " + i, "direct:concurrentSyncInput")
+                    .requestMultiplier(2, xml("<baz/>"))
+                    .addMock(syncMock("seda:concurrentSyncTarget")
+                            .expectationMultiplier(2, xml("<baz/>"))
+                            .responseMultiplier(2, xml("<foo/>")))
+                    .expectationMultiplier(2, xml("<foo/>"))
+                    .addPart("direct:concurrentAsyncInput")
+                    .request(xml("<moo/>"))
+                    .expectation(xml("<foo/>"))
+                    .addMock(asyncMock("seda:concurrentAsyncTarget").expectation(xml("<moo/>")));
+        }
+    }
+}
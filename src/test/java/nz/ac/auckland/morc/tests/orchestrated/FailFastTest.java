@@ -0,0 +1,106 @@
+package nz.ac.auckland.morc.tests.orchestrated;
+
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.MorcTest;
+import nz.ac.auckland.morc.MorcTestBuilder;
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import nz.ac.auckland.morc.specification.SyncOrchestratedTestBuilder;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+public class FailFastTest extends CamelTestSupport implements MorcMethods {
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("vm:failFastInput")
+                        .to("vm:failFastUnexpected?waitForTaskToComplete=Never")
+                        .setBody(constant("<foo/>"));
+            }
+        };
+    }
+
+    public MorcTestBuilder createMorcTestBuilder() {
+        return new MorcTestBuilder() {
+            @Override
+            protected void configure() {
+
+            }
+        };
+    }
+
+    private AssertionError runFailingFast(OrchestratedTestSpecification spec) throws Exception {
+        MorcTest test = new MorcTest(spec) {
+            @Override
+            public boolean isFailFast() {
+                return true;
+            }
+        };
+
+        try {
+            test.setUp();
+            test.runOrchestratedTest();
+        } catch (AssertionError e) {
+            return e;
+        } finally {
+            test.tearDown();
+        }
+        return null;
+    }
+
+    @Test
+    public void testInvalidResponseFailsFast() throws Exception {
+        MorcTestBuilder morcMethods = createMorcTestBuilder();
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test invalid response fails fast",
+                "vm:failFastInput")
+                .request(xml("<baz/>"))
+                .expectation(xml("<moo/>"))
+                .addMock(morcMethods.unreceivedMock("vm:failFastUnexpected").minimalResultWaitTime(10000))
+                .addMock(morcMethods.asyncMock("vm:failFastNeverArrives").expectation(xml("<baz/>"))
+                        .minimalResultWaitTime(10000))
+                .build();
+
+        long startTime = System.currentTimeMillis();
+        AssertionError e = runFailingFast(spec);
+
+        assertNotNull(e);
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+    }
+
+    @Test
+    public void testUnreceivedMockFailsFast() throws Exception {
+        MorcTestBuilder morcMethods = createMorcTestBuilder();
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test unreceived mock fails fast",
+                "vm:failFastInput")
+                .request(xml("<baz/>"))
+                .expectation(xml("<foo/>"))
+                .addMock(morcMethods.unreceivedMock("vm:failFastUnexpected").minimalResultWaitTime(10000))
+                .build();
+
+        long startTime = System.currentTimeMillis();
+        AssertionError e = runFailingFast(spec);
+
+        assertNotNull(e);
+        assertTrue(e.getMessage().contains("vm://failFastUnexpected"));
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+    }
+
+    @Test
+    public void testSuccessfulWithFailFast() throws Exception {
+        MorcTestBuilder morcMethods = createMorcTestBuilder();
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test successful with fail fast",
+                "vm:failFastInput")
+                .request(xml("<baz/>"))
+                .expectation(xml("<foo/>"))
+                .addMock(morcMethods.asyncMock("vm:failFastUnexpected").expectation(xml("<baz/>")))
+                .build();
+
+        assertNull(runFailingFast(spec));
+    }
+}
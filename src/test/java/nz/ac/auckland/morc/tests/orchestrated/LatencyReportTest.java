@@ -0,0 +1,87 @@
+package nz.ac.auckland.morc.tests.orchestrated;
+
+import nz.ac.auckland.morc.LatencyReport;
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.MorcTest;
+import nz.ac.auckland.morc.MorcTestBuilder;
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import nz.ac.auckland.morc.specification.SyncOrchestratedTestBuilder;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+public class LatencyReportTest extends CamelTestSupport implements MorcMethods {
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("vm:latencyReportInput")
+                        .delay(200)
+                        .to("vm:latencyReportTarget")
+                        .setBody(constant("<foo/>"));
+            }
+        };
+    }
+
+    public MorcTestBuilder createMorcTestBuilder() {
+        return new MorcTestBuilder() {
+            @Override
+            protected void configure() {
+
+            }
+        };
+    }
+
+    @Test
+    public void testLatenciesRecorded() throws Exception {
+        MorcTestBuilder morcMethods = createMorcTestBuilder();
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test latencies recorded",
+                "vm:latencyReportInput")
+                .request(xml("<baz/>")).request(xml("<baz/>"))
+                .expectation(xml("<foo/>")).expectation(xml("<foo/>"))
+                .sendInterval(100)
+                .addMock(morcMethods.asyncMock("vm:latencyReportTarget").expectedMessageCount(2))
+                .build();
+
+        final File reportFile = File.createTempFile("morc-latencies", ".jsonl");
+        reportFile.deleteOnExit();
+
+        MorcTest test = new MorcTest(spec) {
+            @Override
+            public String getLatencyReportPath() {
+                return reportFile.getAbsolutePath();
+            }
+        };
+        test.setUp();
+        test.runOrchestratedTest();
+        test.tearDown();
+
+        LatencyReport report = test.getLatencyReport();
+        assertEquals(2, report.getRoundTripLatencies().getCount());
+        assertTrue(report.getRoundTripLatencies().getValueAtPercentile(50) >= 200000000l);
+
+        assertEquals(1, report.getMockArrivalLatencies().size());
+        assertEquals(2, report.getMockArrivalLatencies().get("vm://latencyReportTarget").getCount());
+        assertTrue(report.getMockArrivalLatencies().get("vm://latencyReportTarget").getMax() >= 200000000l);
+        //each arrival is measured from its own request rather than the most recent one
+        assertTrue(report.getMockArrivalLatencies().get("vm://latencyReportTarget").getMean() >= 200000000l);
+
+        List<String> lines = FileUtils.readLines(reportFile, "UTF-8");
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"specification\":\"Test latencies recorded\""));
+        assertTrue(lines.get(0).contains("\"p99\""));
+    }
+
+    @Test
+    public void testReportNotWrittenByDefault() throws Exception {
+        assertNull(System.getProperty("morc.latencyReportPath"));
+        assertNull(new MorcTest().getLatencyReportPath());
+    }
+}
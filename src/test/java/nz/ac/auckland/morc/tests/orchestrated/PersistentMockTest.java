@@ -0,0 +1,63 @@
+package nz.ac.auckland.morc.tests.orchestrated;
+
+import nz.ac.auckland.morc.MorcTestBuilder;
+import nz.ac.auckland.morc.TestBean;
+import org.apache.camel.builder.RouteBuilder;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ensures the route for a persistent mock is only created once for all of the specifications in a suite
+ */
+public class PersistentMockTest extends MorcTestBuilder {
+
+    private static final AtomicInteger routeCreationCount = new AtomicInteger(0);
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:persistentMockInput")
+                        .to("vm:persistentMockTarget");
+            }
+        };
+    }
+
+    @Override
+    public void configure() {
+        persistentMock("vm:persistentMockTarget");
+
+        for (int i = 0; i < 3; i++) {
+            syncTest("Persistent mock specification " + i, "direct:persistentMockInput")
+                    .request(xml("<baz>" + i + "</baz>"))
+                    .addMock(syncMock("vm:persistentMockTarget")
+                            .expectation(xml("<baz>" + i + "</baz>"))
+                            .response(xml("<foo>" + i + "</foo>"))
+                            .addEndpointOverride(endpoint -> routeCreationCount.incrementAndGet()))
+                    .expectation(xml("<foo>" + i + "</foo>"));
+        }
+
+        syncTest("Persistent mock routes are only created once", new TestBean() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(1, routeCreationCount.get());
+                assertEquals(Collections.singleton("vm://persistentMockTarget"), getPersistentMockUris());
+            }
+        });
+
+        syncTest("Persistent mocks reject endpoints local to a context", new TestBean() {
+            @Override
+            public void run() throws Exception {
+                IllegalArgumentException e = null;
+                try {
+                    persistentMock("seda:persistentMockTarget");
+                } catch (IllegalArgumentException ex) {
+                    e = ex;
+                }
+                assertNotNull(e);
+            }
+        });
+    }
+}
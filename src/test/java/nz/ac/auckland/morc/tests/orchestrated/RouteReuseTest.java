@@ -0,0 +1,99 @@
+package nz.ac.auckland.morc.tests.orchestrated;
+
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.MorcTest;
+import nz.ac.auckland.morc.MorcTestBuilder;
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import nz.ac.auckland.morc.specification.SyncOrchestratedTestBuilder;
+import org.apache.camel.Route;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+public class RouteReuseTest extends CamelTestSupport implements MorcMethods {
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("vm:routeReuseInput")
+                        .to("vm:routeReuseMock")
+                        .setBody(constant("<foo/>"));
+            }
+        };
+    }
+
+    public MorcTestBuilder createMorcTestBuilder() {
+        return new MorcTestBuilder() {
+            @Override
+            protected void configure() {
+
+            }
+        };
+    }
+
+    private AssertionError run(OrchestratedTestSpecification spec, MorcTest test) throws Exception {
+        try {
+            test.setUp();
+            test.runOrchestratedTest();
+        } catch (AssertionError e) {
+            return e;
+        } finally {
+            test.tearDown();
+        }
+        return null;
+    }
+
+    @Test
+    public void testPartsReuseRoutes() throws Exception {
+        MorcTestBuilder morcMethods = createMorcTestBuilder();
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test parts reuse routes",
+                "vm:routeReuseInput")
+                .request(xml("<baz/>"))
+                .expectation(xml("<foo/>"))
+                .addMock(morcMethods.syncMock("vm:routeReuseMock").expectation(xml("<baz/>")).response(xml("<moo/>")))
+                .addPart("vm:routeReuseInput")
+                .request(xml("<baz/>"))
+                .expectation(xml("<foo/>"))
+                .addMock(morcMethods.syncMock("vm:routeReuseMock").expectation(xml("<baz/>")).response(xml("<moo/>")))
+                .build();
+
+        final int[] routeCount = new int[1];
+        MorcTest test = new MorcTest(spec) {
+            @Override
+            public void runOrchestratedTest() throws Exception {
+                super.runOrchestratedTest();
+                for (Route route : context.getRoutes()) {
+                    if (route.getId().startsWith(MorcTest.class.getCanonicalName())) routeCount[0]++;
+                }
+            }
+        };
+
+        assertNull(run(spec, test));
+        //the routes are removed once the specification has finished with a context of its own
+        assertEquals(0, routeCount[0]);
+    }
+
+    @Test
+    public void testSecondPartFailureWithReusedRoutes() throws Exception {
+        MorcTestBuilder morcMethods = createMorcTestBuilder();
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test second part failure with reused routes",
+                "vm:routeReuseInput")
+                .request(xml("<baz/>"))
+                .expectation(xml("<foo/>"))
+                .addMock(morcMethods.syncMock("vm:routeReuseMock").expectation(xml("<baz/>")).response(xml("<moo/>")))
+                .addPart("vm:routeReuseInput")
+                .request(xml("<baz/>"))
+                .expectation(xml("<foo/>"))
+                .addMock(morcMethods.syncMock("vm:routeReuseMock").expectation(xml("<moo/>")).response(xml("<moo/>")))
+                .build();
+
+        AssertionError e = run(spec, new MorcTest(spec));
+
+        assertNotNull(e);
+        assertTrue(e.getMessage().contains("vm:routeReuseMock"));
+    }
+}
@@ -0,0 +1,51 @@
+package nz.ac.auckland.morc.tests.orchestrated;
+
+import nz.ac.auckland.morc.MorcTestBuilder;
+import nz.ac.auckland.morc.TestBean;
+import org.apache.camel.builder.RouteBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ensures the routes under testing are only booted once when the context is shared between specifications
+ */
+public class SharedContextTest extends MorcTestBuilder {
+
+    private static final AtomicInteger routeBuilderCount = new AtomicInteger(0);
+
+    @Override
+    public boolean isSharedContext() {
+        return true;
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        routeBuilderCount.incrementAndGet();
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:sharedContextInput")
+                        .to("seda:sharedContextTarget?waitForTaskToComplete=Always");
+            }
+        };
+    }
+
+    @Override
+    public void configure() {
+        for (int i = 0; i < 3; i++) {
+            syncTest("Shared context specification " + i, "direct:sharedContextInput")
+                    .request(xml("<baz/>"))
+                    .addMock(syncMock("seda:sharedContextTarget")
+                            .expectation(xml("<baz/>"))
+                            .response(xml("<foo/>")))
+                    .expectation(xml("<foo/>"));
+        }
+
+        syncTest("Routes are only built once", new TestBean() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(1, routeBuilderCount.get());
+            }
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package nz.ac.auckland.morc.tests.orchestrated;
+
+import nz.ac.auckland.morc.MorcTestBuilder;
+import nz.ac.auckland.morc.TestBean;
+import org.apache.camel.builder.RouteBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ensures that when routes are shared between specifications and stray messages are rejected, a late message for a
+ * finished specification isn't processed by the next one, and that a specification with different endpoint overrides gets its own route
+ */
+public class SharedRouteBindingTest extends MorcTestBuilder {
+
+    private static final AtomicInteger overrideCount = new AtomicInteger(0);
+
+    @Override
+    public boolean isSharedContext() {
+        return true;
+    }
+
+    @Override
+    public boolean isRejectStrayMessages() {
+        return true;
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:sharedRouteInput")
+                        .choice().when(xpath("/first"))
+                        .wireTap("seda:sharedRouteDelayed")
+                        .end()
+                        .to("seda:sharedRouteTarget?waitForTaskToComplete=Always");
+
+                //a duplicate of the message arrives well after the first specification has finished
+                from("seda:sharedRouteDelayed")
+                        .delay(1500)
+                        .to("seda:sharedRouteTarget");
+            }
+        };
+    }
+
+    @Override
+    public void configure() {
+        syncTest("Specification with a late duplicate message", "direct:sharedRouteInput")
+                .request(xml("<first/>"))
+                .addMock(syncMock("seda:sharedRouteTarget")
+                        .expectation(xml("<first/>"))
+                        .response(xml("<foo/>")))
+                .expectation(xml("<foo/>"));
+
+        syncTest("Specification waiting while the late message arrives", "direct:sharedRouteInput")
+                .request(xml("<second/>"))
+                .addMock(syncMock("seda:sharedRouteTarget")
+                        .expectation(xml("<second/>"))
+                        .response(xml("<foo/>"))
+                        .reassertionPeriod(3000))
+                .expectation(xml("<foo/>"));
+
+        syncTest("Specification with different endpoint overrides", "direct:sharedRouteInput")
+                .request(xml("<third/>"))
+                .addMock(syncMock("seda:sharedRouteTarget")
+                        .expectation(xml("<third/>"))
+                        .response(xml("<foo/>"))
+                        .addEndpointOverride(endpoint -> overrideCount.incrementAndGet()))
+                .expectation(xml("<foo/>"));
+
+        syncTest("Endpoint overrides were applied", new TestBean() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(1, overrideCount.get());
+            }
+        });
+    }
+}
@@ -36,6 +36,13 @@ public class SimpleSyncFailureTest extends CamelTestSupport implements MorcMetho
                         .delay(10000)
                         .to("vm:somethingToSeeHere");
 
+                from("vm:syncInputLateOutput")
+                        .to("vm:lateDelay?waitForTaskToComplete=Never")
+                        .setBody(constant("<foo/>"));
+                from("vm:lateDelay")
+                        .delay(1000)
+                        .to("vm:lateTarget");
+
                 from("vm:syncInputNoCallouts")
                         .setBody(constant("<abc/>"));
 
@@ -102,6 +109,30 @@ public class SimpleSyncFailureTest extends CamelTestSupport implements MorcMetho
         assertNotNull(e);
     }
 
+    @Test
+    public void testLateDeliveryDuringQuiescenceFails() throws Exception {
+        MorcTestBuilder morcMethods = createMorcTestBuilder();
+
+        //the late message is held in another context, so the test context is idle while it waits
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test late delivery fails",
+                "vm:syncInputLateOutput")
+                .expectation(xml("<foo/>"))
+                .request(xml("<baz/>"))
+                .addMock(morcMethods.unreceivedMock("vm:lateTarget").reassertionPeriod(3000))
+                .build();
+
+        AssertionError e = null;
+        try {
+            MorcTest test = new MorcTest(spec);
+            test.setUp();
+            test.runOrchestratedTest();
+        } catch (AssertionError ex) {
+            e = ex;
+            logger.info("Exception ({}): ", spec.getDescription(), e);
+        }
+        assertNotNull(e);
+    }
+
     @Test
     public void testInvalidResponseFails() throws Exception {
         MorcTestBuilder morcMethods = createMorcTestBuilder();
@@ -67,6 +67,10 @@ public class SimpleSyncTest extends MorcTestBuilder {
                 from("seda:jsonRequest")
                         .to("seda:jsonExpectation");
 
+                //later messages respond first so responses arrive out of order
+                from("direct:concurrentEcho")
+                        .process(exchange -> Thread.sleep(1000 - 200 * exchange.getIn().getBody(Integer.class)));
+
             }
         };
     }
@@ -202,6 +206,11 @@ public class SimpleSyncTest extends MorcTestBuilder {
                 .request(xml(groovy("<foo>$baz</foo>", var("baz", "123"))))
                 .expectation(json(groovy("{\"foo\":\"$x\"}", var("x", "baz"))));
 
+        syncTest("Concurrent requests correlated with responses", "direct:concurrentEcho")
+                .request(text("1")).request(text("2")).request(text("3")).request(text("4"))
+                .expectation(text("1")).expectation(text("2")).expectation(text("3")).expectation(text("4"))
+                .concurrency(4);
+
         syncTest("simple test bean test", new TestBean() {
             @Override
             public void run() throws Exception {
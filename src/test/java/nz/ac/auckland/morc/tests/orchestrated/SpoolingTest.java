@@ -0,0 +1,155 @@
+package nz.ac.auckland.morc.tests.orchestrated;
+
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.MorcTest;
+import nz.ac.auckland.morc.MorcTestBuilder;
+import nz.ac.auckland.morc.mock.ExchangeRetention;
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import nz.ac.auckland.morc.specification.SyncOrchestratedTestBuilder;
+import org.apache.camel.StreamCache;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SpoolingTest extends CamelTestSupport implements MorcMethods {
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("vm:spoolingInput")
+                        .process(exchange -> exchange.getIn().setBody(new ByteArrayInputStream(
+                                exchange.getIn().getBody(byte[].class))))
+                        .to("vm:spoolingMock")
+                        .process(exchange -> exchange.getIn().setBody(new ByteArrayInputStream(
+                                exchange.getIn().getBody(byte[].class))));
+            }
+        };
+    }
+
+    private MorcTest spooling(OrchestratedTestSpecification spec) {
+        return new MorcTest(spec) {
+            @Override
+            public long getSpoolThreshold() {
+                return 1;
+            }
+        };
+    }
+
+    @Test
+    public void testSpooledBodiesValidated() throws Exception {
+        MorcTestBuilder morcMethods = new MorcTestBuilder() {
+            @Override
+            protected void configure() {
+
+            }
+        };
+
+        final List<Object> mockBodies = Collections.synchronizedList(new ArrayList<>());
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test spooled bodies are validated",
+                "vm:spoolingInput")
+                .request(xml(classpath("/data/bigPingRequest.xml")))
+                .expectation(xml(classpath("/data/bigPingResponse.xml")))
+                .retain(ExchangeRetention.NONE)
+                .addMock(morcMethods.syncMock("vm:spoolingMock")
+                        .expectation(xml(classpath("/data/bigPingRequest.xml")),
+                                exchange -> mockBodies.add(exchange.getIn().getBody()))
+                        .response(xml(classpath("/data/bigPingResponse.xml")))
+                        .retain(ExchangeRetention.NONE))
+                .build();
+
+        MorcTest test = spooling(spec);
+        try {
+            test.setUp();
+            test.runOrchestratedTest();
+        } finally {
+            test.tearDown();
+        }
+
+        assertEquals(1, mockBodies.size());
+        assertTrue(mockBodies.get(0) instanceof StreamCache);
+    }
+
+    @Test
+    public void testSpooledBodyFailureRetained() throws Exception {
+        MorcTestBuilder morcMethods = new MorcTestBuilder() {
+            @Override
+            protected void configure() {
+
+            }
+        };
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test spooled body failure is retained",
+                "vm:spoolingInput")
+                .request(xml(classpath("/data/bigPingRequest.xml")))
+                .expectation(xml("<foo/>"))
+                .retain(ExchangeRetention.FAILURES)
+                .addMock(morcMethods.syncMock("vm:spoolingMock")
+                        .response(xml(classpath("/data/bigPingResponse.xml"))))
+                .build();
+
+        MorcTest test = spooling(spec);
+        AssertionError e = null;
+        try {
+            test.setUp();
+            test.runOrchestratedTest();
+        } catch (AssertionError ex) {
+            e = ex;
+        } finally {
+            test.tearDown();
+        }
+
+        assertNotNull(e);
+    }
+
+    @Test
+    public void testRoutesUnderTestingNotCached() throws Exception {
+        final List<Object> bodies = Collections.synchronizedList(new ArrayList<>());
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Test routes under testing aren't cached",
+                "direct:spoolingUnderTesting")
+                .request(xml("<foo/>"))
+                .expectation(xml("<foo/>"))
+                .build();
+
+        MorcTest test = new MorcTest(spec) {
+            @Override
+            public long getSpoolThreshold() {
+                return 1;
+            }
+
+            @Override
+            protected RouteBuilder createRouteBuilder() throws Exception {
+                return new RouteBuilder() {
+                    @Override
+                    public void configure() throws Exception {
+                        from("direct:spoolingUnderTesting")
+                                .process(exchange -> exchange.getIn().setBody(new ByteArrayInputStream(
+                                        exchange.getIn().getBody(byte[].class))))
+                                .to("direct:spoolingUnderTestingNext");
+
+                        from("direct:spoolingUnderTestingNext")
+                                .process(exchange -> bodies.add(exchange.getIn().getBody()));
+                    }
+                };
+            }
+        };
+
+        try {
+            test.setUp();
+            test.runOrchestratedTest();
+        } finally {
+            test.tearDown();
+        }
+
+        assertEquals(1, bodies.size());
+        assertTrue(bodies.get(0) instanceof ByteArrayInputStream);
+    }
+}
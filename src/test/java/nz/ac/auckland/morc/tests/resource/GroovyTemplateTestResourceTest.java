@@ -1,17 +1,24 @@
 package nz.ac.auckland.morc.tests.resource;
 
+import groovy.text.GStringTemplateEngine;
 import groovy.text.SimpleTemplateEngine;
+import groovy.text.Template;
+import groovy.text.TemplateEngine;
 import nz.ac.auckland.morc.resource.GroovyTemplateTestResource;
 import nz.ac.auckland.morc.resource.PlainTextTestResource;
 import org.apache.camel.Exchange;
 import org.apache.camel.impl.DefaultCamelContext;
 import org.apache.camel.impl.DefaultExchange;
+import org.codehaus.groovy.control.CompilationFailedException;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GroovyTemplateTestResourceTest extends Assert {
 
@@ -87,4 +94,43 @@ public class GroovyTemplateTestResourceTest extends Assert {
         assertTrue(nextEndTime - 2000 >= endTime);
     }
 
+    @Test
+    public void testTemplateCompiledOncePerEngine() throws Exception {
+        final AtomicInteger compilations = new AtomicInteger();
+        TemplateEngine engine = new GStringTemplateEngine() {
+            @Override
+            public Template createTemplate(Reader reader) throws CompilationFailedException, ClassNotFoundException,
+                    IOException {
+                compilations.incrementAndGet();
+                return super.createTemplate(reader);
+            }
+        };
+
+        PlainTextTestResource resource = new PlainTextTestResource("$foo");
+        for (int i = 0; i < 10; i++) {
+            Map<String, String> variables = new HashMap<>();
+            variables.put("foo", String.valueOf(i));
+            assertEquals(String.valueOf(i), new GroovyTemplateTestResource(engine, resource, variables).getValue());
+        }
+
+        assertEquals(1, compilations.get());
+    }
+
+    @Test
+    public void testMemoizedValue() throws Exception {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("foo", "1");
+
+        GroovyTemplateTestResource testResource = new GroovyTemplateTestResource(
+                new PlainTextTestResource("${foo}-${System.nanoTime()}"), variables);
+        testResource.setMemoized(true);
+
+        String value = testResource.getValue();
+        assertTrue(value.startsWith("1-"));
+        assertSame(value, testResource.getValue());
+
+        variables.put("foo", "2");
+        assertTrue(testResource.getValue().startsWith("2-"));
+    }
+
 }
@@ -130,4 +130,46 @@ public class JsonTestResourceTest extends Assert {
         new JsonTestResource("{\"foo\":\"baz\" }").process(e);
         assertEquals("application/json", e.getIn().getHeader(Exchange.CONTENT_TYPE));
     }
+
+    @Test
+    public void testFieldOrderIgnored() throws Exception {
+        JsonTestResource validator = new JsonTestResource(inputUrl);
+        assertTrue(validator.validate("{\"phone\":[{\"number\":1234,\"type\":\"home\"},{\"type\":\"work\"," +
+                "\"number\":4321}],\"address\":{\"city\":\"baz\",\"street\":\"foostreet\"},\"lastName\":\"baz\"," +
+                "\"firstName\":\"foo\"}"));
+    }
+
+    @Test
+    public void testArrayOrderCompared() throws Exception {
+        JsonTestResource validator = new JsonTestResource("{\"foo\":[1,2]}");
+        assertFalse(validator.validate("{\"foo\":[2,1]}"));
+        assertFalse(validator.validate("{\"foo\":[1,2,3]}"));
+        assertFalse(validator.validate("{\"foo\":[1]}"));
+    }
+
+    @Test
+    public void testMissingAndExtraFields() throws Exception {
+        JsonTestResource validator = new JsonTestResource("{\"foo\":\"baz\",\"moo\":null}");
+        assertFalse(validator.validate("{\"foo\":\"baz\"}"));
+        assertFalse(validator.validate("{\"foo\":\"baz\",\"moo\":null,\"cow\":true}"));
+        assertTrue(validator.validate("{\"moo\":null,\"foo\":\"baz\"}"));
+    }
+
+    @Test
+    public void testNumberTypesCompared() throws Exception {
+        JsonTestResource validator = new JsonTestResource("{\"foo\":1,\"baz\":1.5,\"moo\":12345678901}");
+        assertTrue(validator.validate("{\"foo\":1,\"baz\":1.5,\"moo\":12345678901}"));
+        assertFalse(validator.validate("{\"foo\":1.0,\"baz\":1.5,\"moo\":12345678901}"));
+        assertFalse(validator.validate("{\"foo\":1,\"baz\":1.5,\"moo\":12345678902}"));
+    }
+
+    @Test
+    public void testByteArrayExchange() throws Exception {
+        Exchange e = new DefaultExchange(new DefaultCamelContext());
+        e.getIn().setBody("{\"foo\":\"baz\"}".getBytes("UTF-8"));
+        assertTrue(new JsonTestResource("{\"foo\":\"baz\"}").matches(e));
+
+        e.getIn().setBody("{\"foo\":\"moo\"}".getBytes("UTF-8"));
+        assertFalse(new JsonTestResource("{\"foo\":\"baz\"}").matches(e));
+    }
 }
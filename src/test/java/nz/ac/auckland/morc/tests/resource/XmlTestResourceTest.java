@@ -11,10 +11,14 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.w3c.dom.Document;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class XmlTestResourceTest extends Assert {
 
@@ -156,5 +160,51 @@ public class XmlTestResourceTest extends Assert {
         assertEquals("application/xml", e.getIn().getHeader(Exchange.CONTENT_TYPE));
     }
 
-}
 
+    @Test
+    public void testConcurrentMatching() throws Exception {
+        final XmlTestResource resource = new XmlTestResource(inputUrl);
+        final String body = xmlUtilities.getDocumentAsString(EXPECTED_VALUE);
+        final AtomicInteger failures = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+                    exchange.getIn().setBody(body);
+                    if (!resource.matches(exchange)) failures.incrementAndGet();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(0, failures.get());
+    }
+
+    @Test
+    public void testLoadFailureRepeated() throws Exception {
+        XmlTestResource resource = new XmlTestResource(new ByteArrayInputStream("<foo>".getBytes("UTF-8")));
+
+        Exception first = null;
+        try {
+            resource.getValue();
+        } catch (Exception e) {
+            first = e;
+        }
+
+        Exception second = null;
+        try {
+            resource.getValue();
+        } catch (Exception e) {
+            second = e;
+        }
+
+        assertNotNull(first);
+        assertSame(first, second);
+    }
+}
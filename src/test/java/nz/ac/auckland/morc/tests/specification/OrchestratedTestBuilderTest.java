@@ -2,6 +2,7 @@ package nz.ac.auckland.morc.tests.specification;
 
 import nz.ac.auckland.morc.MorcMethods;
 import nz.ac.auckland.morc.MorcTestBuilder;
+import nz.ac.auckland.morc.mock.ExchangeRetention;
 import nz.ac.auckland.morc.mock.MockDefinition;
 import nz.ac.auckland.morc.specification.AsyncOrchestratedTestBuilder;
 import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
@@ -291,4 +292,45 @@ public class OrchestratedTestBuilderTest extends Assert implements MorcMethods {
         assertEquals(2000l, test.getNextPart().getExecuteDelay().delay());
         assertEquals(0, test.getNextPart().getNextPart().getExecuteDelay().delay());
     }
+
+    @Test
+    public void testConcurrency() throws Exception {
+        OrchestratedTestSpecification test = new SyncOrchestratedTestBuilder("foo", "baz")
+                .request(text("foo")).request(text("baz")).concurrency(2).build();
+
+        assertEquals(2, test.getConcurrency());
+        assertEquals(1, new SyncOrchestratedTestBuilder("foo", "baz").request(text("foo")).build().getConcurrency());
+    }
+
+    @Test
+    public void testInvalidConcurrency() throws Exception {
+        IllegalArgumentException e = null;
+        try {
+            new SyncOrchestratedTestBuilder("foo", "baz").request(text("foo")).concurrency(0);
+        } catch (IllegalArgumentException ex) {
+            e = ex;
+        }
+        assertNotNull(e);
+    }
+
+    @Test
+    public void testRetention() throws Exception {
+        OrchestratedTestSpecification test = new SyncOrchestratedTestBuilder("foo", "baz")
+                .request(text("foo")).retain(ExchangeRetention.FAILURES).build();
+
+        assertEquals(ExchangeRetention.FAILURES, test.getRetention());
+        assertEquals(ExchangeRetention.ALL,
+                new SyncOrchestratedTestBuilder("foo", "baz").request(text("foo")).build().getRetention());
+    }
+
+    @Test
+    public void testNullRetention() throws Exception {
+        IllegalArgumentException e = null;
+        try {
+            new SyncOrchestratedTestBuilder("foo", "baz").request(text("foo")).retain(null);
+        } catch (IllegalArgumentException ex) {
+            e = ex;
+        }
+        assertNotNull(e);
+    }
 }
@@ -0,0 +1,159 @@
+package nz.ac.auckland.morc.tests.utility;
+
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.resource.GroovyTemplateTestResource;
+import nz.ac.auckland.morc.specification.OrchestratedTestSpecification;
+import nz.ac.auckland.morc.specification.SyncOrchestratedTestBuilder;
+import nz.ac.auckland.morc.utility.CsvDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class CsvDataSourceTest extends Assert implements MorcMethods {
+
+    private File csvFile(String content) throws Exception {
+        File file = File.createTempFile("morc-data", ".csv");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+        return file;
+    }
+
+    @Test
+    public void testRowsReadFromFile() throws Exception {
+        Iterator<Map<String, String>> rows = csv(csvFile("foo,baz\n1,2\n3,4\n")).iterator();
+
+        Map<String, String> row = rows.next();
+        assertEquals("1", row.get("foo"));
+        assertEquals("2", row.get("baz"));
+        assertNull(row.get("moo"));
+        assertEquals(Arrays.asList("foo", "baz"), new ArrayList<>(row.keySet()));
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("foo", "3");
+        expected.put("baz", "4");
+        assertEquals(expected, rows.next());
+
+        assertFalse(rows.hasNext());
+    }
+
+    @Test
+    public void testIteratedAgain() throws Exception {
+        CsvDataSource dataSource = csv(csvFile("foo\n1\n2\n").toURI().toURL());
+
+        for (int i = 0; i < 2; i++) {
+            int count = 0;
+            for (Map<String, String> row : dataSource) {
+                assertEquals(String.valueOf(++count), row.get("foo"));
+            }
+            assertEquals(2, count);
+        }
+    }
+
+    @Test
+    public void testDuplicateHeaders() throws Exception {
+        CsvDataSource dataSource = csv(csvFile("foo,foo\n1,2\n"));
+
+        IllegalArgumentException e = null;
+        try {
+            dataSource.iterator();
+        } catch (IllegalArgumentException ex) {
+            e = ex;
+        }
+
+        assertNotNull(e);
+    }
+
+    @Test
+    public void testTooManyValuesWhenReached() throws Exception {
+        Iterator<Map<String, String>> rows = csv(csvFile("foo,baz\n1,2\n3,4,5\n6,7\n")).iterator();
+        assertEquals("1", rows.next().get("foo"));
+
+        IllegalArgumentException e = null;
+        try {
+            rows.next();
+        } catch (IllegalArgumentException ex) {
+            e = ex;
+        }
+
+        assertNotNull(e);
+        assertTrue(e.getMessage().contains("line 3"));
+        assertFalse(rows.hasNext());
+    }
+
+    @Test
+    public void testNoHeaders() throws Exception {
+        IllegalArgumentException e = null;
+        try {
+            csv(csvFile("")).iterator();
+        } catch (IllegalArgumentException ex) {
+            e = ex;
+        }
+
+        assertNotNull(e);
+    }
+
+    @Test
+    public void testGroovyResourcesCreatedOnDemand() throws Exception {
+        Iterable<GroovyTemplateTestResource> resources =
+                groovy(text("value:${foo},value:${baz}"), csv(csvFile("foo,baz\n1,2\n3,4\n")));
+
+        List<String> values = new ArrayList<>();
+        for (GroovyTemplateTestResource resource : resources) {
+            values.add(resource.getValue());
+        }
+
+        assertEquals(Arrays.asList("value:1,value:2", "value:3,value:4"), values);
+    }
+
+    @Test
+    public void testAbandonedIteratorClosed() throws Exception {
+        CsvDataSource.RowIterator abandoned;
+        try (CsvDataSource.RowIterator rows = csv(csvFile("foo\n1\n2\n3\n")).iterator()) {
+            assertEquals("1", rows.next().get("foo"));
+            abandoned = rows;
+        }
+
+        assertFalse(abandoned.hasNext());
+    }
+
+    @Test
+    public void testResourcesGivenToBuilders() throws Exception {
+        File file = csvFile("foo,baz\n1,2\n3,4\n");
+
+        OrchestratedTestSpecification spec = new SyncOrchestratedTestBuilder("Data source specification", "vm:foo")
+                .requests(groovy("<foo>${foo}</foo>", csv(file)))
+                .expectations(xml(groovy("<baz>${baz}</baz>", csv(file))))
+                .build();
+
+        assertEquals(2, spec.getProcessors().size());
+        assertEquals(2, spec.getPredicates().size());
+    }
+
+    @Test
+    public void testLargeFileStreamed() throws Exception {
+        File file = File.createTempFile("morc-data", ".csv");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("id,value\n");
+            for (int i = 0; i < 200000; i++) {
+                writer.write(i + ",value" + i + "\n");
+            }
+        }
+
+        int count = 0;
+        for (Map<String, String> row : csv(file)) {
+            if (!row.get("id").equals(String.valueOf(count))) fail("Unexpected row " + row);
+            count++;
+        }
+
+        assertEquals(200000, count);
+    }
+}
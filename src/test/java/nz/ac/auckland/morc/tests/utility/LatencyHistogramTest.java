@@ -0,0 +1,68 @@
+package nz.ac.auckland.morc.tests.utility;
+
+import nz.ac.auckland.morc.utility.LatencyHistogram;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest extends Assert {
+
+    @Test
+    public void testEmptyHistogram() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void testSmallValuesExact() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10; i++)
+            histogram.record(i);
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(9, histogram.getValueAtPercentile(90));
+        assertEquals(10, histogram.getValueAtPercentile(100));
+        assertEquals(10, histogram.getMax());
+        assertEquals(5.5, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void testPercentileAccuracy() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i * 1000000l);
+
+        assertEquals(500000000l, histogram.getValueAtPercentile(50), 500000000l * 0.07);
+        assertEquals(990000000l, histogram.getValueAtPercentile(99), 990000000l * 0.07);
+        assertEquals(1000000000l, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testNegativeRecordedAsZero() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.getMax());
+        assertEquals(1, histogram.getCount());
+    }
+
+    @Test
+    public void testLargeValues() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testInvalidPercentile() throws Exception {
+        IllegalArgumentException e = null;
+        try {
+            new LatencyHistogram().getValueAtPercentile(101);
+        } catch (IllegalArgumentException ex) {
+            e = ex;
+        }
+        assertNotNull(e);
+    }
+}
@@ -0,0 +1,120 @@
+package nz.ac.auckland.morc.tests.utility;
+
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.resource.PlainTextTestResource;
+import nz.ac.auckland.morc.utility.LazyUrlInputStream;
+import nz.ac.auckland.morc.utility.ResourceDirectory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LazyUrlInputStreamTest extends Assert implements MorcMethods {
+
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+
+    private URL countingUrl(final String content) throws Exception {
+        return new URL(null, "counting:" + content, new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL u) throws IOException {
+                return new URLConnection(u) {
+                    @Override
+                    public void connect() throws IOException {
+                    }
+
+                    @Override
+                    public InputStream getInputStream() throws IOException {
+                        opened.incrementAndGet();
+                        return new ByteArrayInputStream(content.getBytes("UTF-8")) {
+                            @Override
+                            public void close() throws IOException {
+                                closed.incrementAndGet();
+                                super.close();
+                            }
+                        };
+                    }
+                };
+            }
+        });
+    }
+
+    @Test
+    public void testOpenedOnFirstReadAndClosedAtEnd() throws Exception {
+        InputStream stream = new LazyUrlInputStream(countingUrl("ab"));
+        assertEquals(0, opened.get());
+
+        assertEquals('a', stream.read());
+        assertEquals(1, opened.get());
+        assertEquals(0, closed.get());
+
+        assertEquals('b', stream.read());
+        assertEquals(-1, stream.read());
+        assertEquals(1, closed.get());
+        assertEquals(-1, stream.read());
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    public void testClosedWithoutOpening() throws Exception {
+        InputStream stream = new LazyUrlInputStream(countingUrl("ab"));
+        stream.close();
+
+        assertEquals(-1, stream.read());
+        assertEquals(0, opened.get());
+    }
+
+    @Test
+    public void testResourceOpenedWhenValueNeeded() throws Exception {
+        PlainTextTestResource resource = new PlainTextTestResource(countingUrl("foo"));
+        assertEquals(0, opened.get());
+
+        assertEquals("foo", resource.getValue());
+        assertEquals(1, opened.get());
+        assertEquals(1, closed.get());
+
+        assertEquals("foo", resource.getValue());
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    public void testDirResourcesNotOpened() throws Exception {
+        InputStream[] streams = dir("data/multidirtest/**/*.txt");
+        assertEquals(4, streams.length);
+        for (InputStream stream : streams) {
+            assertTrue(stream instanceof LazyUrlInputStream);
+        }
+
+        ResourceDirectory resourceDirectory = new ResourceDirectory();
+        assertSame(resourceDirectory.getUrls("data/multidirtest/**/*.txt"),
+                resourceDirectory.getUrls("data/multidirtest/**/*.txt"));
+    }
+
+    @Test
+    public void testAddedResourcesSeenOnceCleared() throws Exception {
+        File directory = Files.createTempDirectory("morc-dir").toFile();
+        directory.deleteOnExit();
+        String urlpath = directory.toURI().toURL() + "*.txt";
+
+        ResourceDirectory resourceDirectory = new ResourceDirectory();
+        assertEquals(0, resourceDirectory.getUrls(urlpath).size());
+
+        File resource = new File(directory, "foo.txt");
+        resource.deleteOnExit();
+        assertTrue(resource.createNewFile());
+
+        assertEquals(0, resourceDirectory.getUrls(urlpath).size());
+        assertEquals(1, new ResourceDirectory().getUrls(urlpath).size());
+
+        resourceDirectory.clear();
+        assertEquals(1, resourceDirectory.getUrls(urlpath).size());
+    }
+}
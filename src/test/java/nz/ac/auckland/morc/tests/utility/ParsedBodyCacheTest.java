@@ -0,0 +1,80 @@
+package nz.ac.auckland.morc.tests.utility;
+
+import nz.ac.auckland.morc.MorcMethods;
+import nz.ac.auckland.morc.mock.ExchangeRetention;
+import nz.ac.auckland.morc.predicate.MultiPredicate;
+import nz.ac.auckland.morc.utility.ParsedBodyCache;
+import org.apache.camel.Exchange;
+import org.apache.camel.Predicate;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import java.util.Arrays;
+
+public class ParsedBodyCacheTest extends Assert implements MorcMethods {
+
+    private Exchange exchange(Object body) {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getIn().setBody(body);
+        return exchange;
+    }
+
+    @Test
+    public void testBodyParsedOnce() throws Exception {
+        Exchange exchange = exchange("<foo><baz>1</baz></foo>".getBytes());
+
+        Document document = ParsedBodyCache.getBody(exchange, Document.class);
+        assertNotNull(document);
+        assertSame(document, ParsedBodyCache.getBody(exchange, Document.class));
+    }
+
+    @Test
+    public void testReplacedBodyParsedAgain() throws Exception {
+        Exchange exchange = exchange("<foo/>".getBytes());
+        Document document = ParsedBodyCache.getBody(exchange, Document.class);
+
+        exchange.getIn().setBody("<baz/>".getBytes());
+        Document replaced = ParsedBodyCache.getBody(exchange, Document.class);
+        assertNotSame(document, replaced);
+        assertEquals("baz", replaced.getDocumentElement().getLocalName());
+    }
+
+    @Test
+    public void testBodyOfRequestedType() throws Exception {
+        Exchange exchange = exchange("foo");
+        assertSame(exchange.getIn().getBody(), ParsedBodyCache.getBody(exchange, String.class));
+        assertNull(exchange.getProperty(ParsedBodyCache.PROPERTY));
+    }
+
+    @Test
+    public void testNullBody() throws Exception {
+        assertNull(ParsedBodyCache.getBody(exchange(null), Document.class));
+    }
+
+    @Test
+    public void testPredicatesShareDocument() throws Exception {
+        Exchange exchange = exchange("<foo><baz>1</baz></foo>".getBytes());
+
+        Predicate predicate = new MultiPredicate(Arrays.asList(xml("<foo><baz>1</baz></foo>"),
+                xpath("/foo/baz = 1"), xpath("count(/foo/baz) = 1")));
+        assertTrue(predicate.matches(exchange));
+
+        Document document = ParsedBodyCache.getBody(exchange, Document.class);
+        assertTrue(xpath("/foo/baz = 1").matches(exchange));
+        assertSame(document, ParsedBodyCache.getBody(exchange, Document.class));
+    }
+
+    @Test
+    public void testRetainedCopyDropsCache() throws Exception {
+        Exchange exchange = exchange("<foo/>".getBytes());
+        ParsedBodyCache.getBody(exchange, Document.class);
+        assertNotNull(exchange.getProperty(ParsedBodyCache.PROPERTY));
+
+        Exchange copy = ExchangeRetention.copy(exchange);
+        assertNull(copy.getProperty(ParsedBodyCache.PROPERTY));
+        assertNotNull(exchange.getProperty(ParsedBodyCache.PROPERTY));
+    }
+}
@@ -0,0 +1,97 @@
+package nz.ac.auckland.morc.tests.utility;
+
+import nz.ac.auckland.morc.resource.XmlTestResource;
+import nz.ac.auckland.morc.utility.StreamingXmlComparator;
+import nz.ac.auckland.morc.utility.XmlUtilities;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.StringReader;
+
+public class StreamingXmlComparatorTest extends Assert {
+
+    private StreamingXmlComparator comparator = new StreamingXmlComparator();
+
+    @Before
+    public void configureXmlUnit() {
+        XMLUnit.setIgnoreWhitespace(true);
+        XMLUnit.setNormalizeWhitespace(true);
+        XMLUnit.setIgnoreComments(true);
+    }
+
+    private boolean similar(String expected, String actual) throws XMLStreamException {
+        return comparator.similar(StreamingXmlComparator.createReader(new StringReader(expected)),
+                StreamingXmlComparator.createReader(new StringReader(actual)));
+    }
+
+    @Test
+    public void testSameDocument() throws Exception {
+        assertTrue(similar("<foo><baz a=\"1\">moo</baz></foo>", "<foo><baz a=\"1\">moo</baz></foo>"));
+    }
+
+    @Test
+    public void testDifferentPrefixesAndAttributeOrder() throws Exception {
+        assertTrue(similar("<a:foo xmlns:a=\"urn:foo\"><a:baz x=\"1\" y=\"2\"/></a:foo>",
+                "<b:foo xmlns:b=\"urn:foo\"><b:baz y=\"2\" x=\"1\"/></b:foo>"));
+    }
+
+    @Test
+    public void testDifferentNamespace() throws Exception {
+        assertFalse(similar("<a:foo xmlns:a=\"urn:foo\"/>", "<a:foo xmlns:a=\"urn:baz\"/>"));
+    }
+
+    @Test
+    public void testWhitespaceAndCommentsIgnored() throws Exception {
+        assertTrue(similar("<foo>\n  <baz>moo   cow</baz>\n</foo>", "<foo><!-- comment --><baz> moo cow </baz></foo>"));
+    }
+
+    @Test
+    public void testWhitespaceAndCommentsCompared() throws Exception {
+        XMLUnit.setIgnoreWhitespace(false);
+        XMLUnit.setNormalizeWhitespace(false);
+        XMLUnit.setIgnoreComments(false);
+        try {
+            assertFalse(similar("<foo><baz>moo</baz></foo>", "<foo> <baz>moo</baz></foo>"));
+            assertFalse(similar("<foo/>", "<foo><!-- comment --></foo>"));
+        } finally {
+            configureXmlUnit();
+        }
+    }
+
+    @Test
+    public void testDifferentText() throws Exception {
+        assertFalse(similar("<foo><baz>moo</baz></foo>", "<foo><baz>cow</baz></foo>"));
+    }
+
+    @Test
+    public void testDifferentAttributes() throws Exception {
+        assertFalse(similar("<foo a=\"1\"/>", "<foo a=\"2\"/>"));
+        assertFalse(similar("<foo a=\"1\"/>", "<foo a=\"1\" b=\"2\"/>"));
+    }
+
+    @Test
+    public void testDifferentStructure() throws Exception {
+        assertFalse(similar("<foo><baz/></foo>", "<foo><baz/><baz/></foo>"));
+        assertFalse(similar("<foo><baz/></foo>", "<foo>baz</foo>"));
+    }
+
+    @Test
+    public void testReorderedElementsLeftToXmlUnit() throws Exception {
+        String expected = "<foo><baz>1</baz><moo>2</moo></foo>";
+        String actual = "<foo><moo>2</moo><baz>1</baz></foo>";
+
+        assertFalse(similar(expected, actual));
+        XmlTestResource resource = new XmlTestResource(new XmlUtilities().getXmlAsDocument(expected));
+        assertTrue(resource.validate(actual));
+    }
+
+    @Test
+    public void testSerializedDocumentNotIndented() throws Exception {
+        String xml = new String(StreamingXmlComparator.getDocumentAsBytes(
+                new XmlUtilities().getXmlAsDocument("<foo><baz>1</baz></foo>")), "UTF-8");
+        assertTrue(xml.endsWith("<foo><baz>1</baz></foo>"));
+    }
+}
@@ -0,0 +1,72 @@
+package nz.ac.auckland.morc.tests.utility;
+
+import nz.ac.auckland.morc.utility.XmlUtilities;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.transform.OutputKeys;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class XmlUtilitiesTest extends Assert {
+
+    @Test
+    public void testBuilderReusedOnThread() throws Exception {
+        XmlUtilities xmlUtilities = new XmlUtilities();
+        assertSame(xmlUtilities.getDocumentBuilder(), new XmlUtilities().getDocumentBuilder());
+        assertSame(xmlUtilities.getTransformer(), xmlUtilities.getTransformer());
+    }
+
+    @Test
+    public void testBuilderNotSharedBetweenThreads() throws Exception {
+        final AtomicReference<DocumentBuilder> otherBuilder = new AtomicReference<>();
+        Thread thread = new Thread(() -> otherBuilder.set(new XmlUtilities().getDocumentBuilder()));
+        thread.start();
+        thread.join();
+
+        assertNotNull(otherBuilder.get());
+        assertNotSame(otherBuilder.get(), new XmlUtilities().getDocumentBuilder());
+    }
+
+    @Test
+    public void testConcurrentParsing() throws Exception {
+        final XmlUtilities xmlUtilities = new XmlUtilities();
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            final int threadIndex = i;
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 250; j++) {
+                    String xml = "<foo><baz>" + threadIndex + "-" + j + "</baz></foo>";
+                    Document document = xmlUtilities.getXmlAsDocument(xml);
+                    if (!xmlUtilities.getDocumentAsString(document).contains(threadIndex + "-" + j))
+                        failures.incrementAndGet();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(0, failures.get());
+    }
+
+    @Test
+    public void testTransformerChangesCleared() throws Exception {
+        XmlUtilities xmlUtilities = new XmlUtilities();
+        Document document = xmlUtilities.getXmlAsDocument("<foo/>");
+
+        xmlUtilities.getTransformer().setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        xmlUtilities.getTransformer().setParameter("foo", "baz");
+
+        assertTrue(xmlUtilities.getDocumentAsString(document).startsWith("<?xml"));
+        assertNull(xmlUtilities.getTransformer().getParameter("foo"));
+    }
+}